@@ -0,0 +1,35 @@
+package com.aimitjava;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Locates the synthetic PDFs generated by the {@code generateBenchmarkPdfs} task. When the
+ * benchmarks are started without the task, the missing files are generated on first use.
+ */
+final class BenchmarkFiles {
+    private static final String PDF_DIR_PROPERTY = "benchmark.pdf.dir";
+
+    private BenchmarkFiles() {
+    }
+
+    static synchronized File pdf(String layout, int pages) throws IOException {
+        String configured = System.getProperty(PDF_DIR_PROPERTY);
+        Path directory = configured != null
+                ? Path.of(configured)
+                : Path.of(System.getProperty("java.io.tmpdir"), "benchmark-pdfs");
+        Files.createDirectories(directory);
+
+        File pdf = BenchmarkPdfGenerator.fileFor(directory, layout, pages);
+        if (!pdf.exists()) {
+            BenchmarkPdfGenerator.generate(pdf, layout, pages);
+        }
+        return pdf;
+    }
+
+    static String text(String layout, int pages) throws IOException {
+        return new PdfDocumentHandler().extractText(pdf(layout, pages));
+    }
+}
@@ -0,0 +1,114 @@
+package com.aimitjava;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Writes the synthetic PDFs used by the benchmarks. Every layout is generated in every size,
+ * named {@code <layout>-<pages>.pdf}. The content is pseudo-random but fixed, so runs on
+ * different versions measure the same documents.
+ */
+public class BenchmarkPdfGenerator {
+    static final String[] LAYOUTS = {"text", "columns", "sparse"};
+    static final int[] PAGE_COUNTS = {1, 20, 200};
+
+    private static final String[] WORDS = {
+            "document", "summary", "analysis", "revenue", "quarter", "system", "process", "customer",
+            "the", "of", "and", "to", "in", "for", "with", "on", "report", "result", "growth", "data",
+            "market", "product", "team", "project", "risk", "value", "model", "service", "cost", "plan"
+    };
+    private static final float FONT_SIZE = 10;
+    private static final float LEADING = 12;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: BenchmarkPdfGenerator <output directory>");
+        }
+        Path outputDir = Path.of(args[0]);
+        Files.createDirectories(outputDir);
+
+        for (String layout : LAYOUTS) {
+            for (int pages : PAGE_COUNTS) {
+                File pdf = fileFor(outputDir, layout, pages);
+                if (!pdf.exists()) {
+                    generate(pdf, layout, pages);
+                }
+            }
+        }
+    }
+
+    static File fileFor(Path directory, String layout, int pages) {
+        return directory.resolve(layout + "-" + pages + ".pdf").toFile();
+    }
+
+    static void generate(File file, String layout, int pageCount) throws IOException {
+        Random random = new Random(42);
+        try (PDDocument document = new PDDocument()) {
+            for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                    content.setFont(PDType1Font.HELVETICA, FONT_SIZE);
+                    switch (layout) {
+                        case "text" -> writeColumn(content, random, 50, 740, 55, 100);
+                        case "columns" -> {
+                            writeColumn(content, random, 50, 740, 55, 45);
+                            writeColumn(content, random, 320, 740, 55, 45);
+                        }
+                        case "sparse" -> writeSparse(content, random, pageNumber, pageCount);
+                        default -> throw new IllegalArgumentException("Unknown layout " + layout);
+                    }
+                }
+            }
+            document.save(file);
+        }
+    }
+
+    private static void writeColumn(PDPageContentStream content, Random random,
+                                    float x, float y, int lines, int charsPerLine) throws IOException {
+        content.beginText();
+        content.setLeading(LEADING);
+        content.newLineAtOffset(x, y);
+        for (int line = 0; line < lines; line++) {
+            content.showText(sentence(random, charsPerLine));
+            content.newLine();
+        }
+        content.endText();
+    }
+
+    private static void writeSparse(PDPageContentStream content, Random random,
+                                    int pageNumber, int pageCount) throws IOException {
+        // Header, a few scattered fragments and a footer, like slides or forms
+        writeLine(content, 50, 760, "Synthetic benchmark document");
+        for (int i = 0; i < 8; i++) {
+            writeLine(content, 50 + random.nextInt(300), 100 + random.nextInt(600), sentence(random, 30));
+        }
+        writeLine(content, 280, 30, "Page " + pageNumber + " of " + pageCount);
+    }
+
+    private static void writeLine(PDPageContentStream content, float x, float y, String text) throws IOException {
+        content.beginText();
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private static String sentence(Random random, int length) {
+        StringBuilder sentence = new StringBuilder(length + 16);
+        while (sentence.length() < length) {
+            if (!sentence.isEmpty()) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.append('.').toString();
+    }
+}
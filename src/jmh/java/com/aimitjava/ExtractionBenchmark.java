@@ -0,0 +1,58 @@
+package com.aimitjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures text extraction with {@link PdfDocumentHandler#extractText(File)} on the synthetic PDFs,
+ * with and without header and footer cleaning, and with PDFBox buffers on the heap or in a scratch file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"text", "columns", "sparse"})
+    public String layout;
+
+    @Param({"1", "20", "200"})
+    public int pages;
+
+    @Param({"false", "true"})
+    public boolean cleaning;
+
+    // Heap budget per document in MB, 0 keeps all buffers on the heap
+    @Param({"0", "1"})
+    public int maxHeapMb;
+
+    private PdfDocumentHandler handler;
+    private File pdf;
+
+    @Setup
+    public void setUp() throws IOException {
+        handler = new PdfDocumentHandler(cleaning ? new PdfTextCleaner() : null,
+                PdfDocumentHandler.memoryUsage(maxHeapMb * 1024L * 1024L, null));
+        pdf = BenchmarkFiles.pdf(layout, pages);
+    }
+
+    @Benchmark
+    public String extractText() throws IOException {
+        return handler.extractText(pdf);
+    }
+}
@@ -0,0 +1,123 @@
+package com.aimitjava;
+
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.Response;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for the OpenAI chat model during load tests. Every request sleeps for a log-normally
+ * distributed time to first token plus the time needed to generate the answer at the configured
+ * token rate, and fails with a server error or a rate limit at the configured rates.
+ */
+class SimulatedChatModel implements ChatLanguageModel {
+    // z-score of the 99th percentile of the standard normal distribution
+    private static final double P99_Z_SCORE = 2.326;
+    private static final String ANSWER_WORD = "summary ";
+
+    private final double latencyMu;
+    private final double latencySigma;
+    private final int completionTokens;
+    private final double tokensPerSecond;
+    private final double errorRate;
+    private final double rateLimitRate;
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger errors = new AtomicInteger();
+    private final AtomicInteger rateLimits = new AtomicInteger();
+
+    /**
+     * @param medianLatencyMs Median time until the first token
+     * @param p99LatencyMs 99th percentile of the time until the first token
+     * @param completionTokens Tokens in every answer
+     * @param tokensPerSecond Generation speed of the answer, 0 for instant answers
+     * @param errorRate Share of requests failing with HTTP 500
+     * @param rateLimitRate Share of requests failing with HTTP 429
+     */
+    SimulatedChatModel(long medianLatencyMs, long p99LatencyMs, int completionTokens,
+                       double tokensPerSecond, double errorRate, double rateLimitRate) {
+        if (p99LatencyMs < medianLatencyMs) {
+            throw new IllegalArgumentException("p99 latency must not be below the median latency");
+        }
+        this.latencyMu = Math.log(Math.max(medianLatencyMs, 1));
+        this.latencySigma = Math.log((double) Math.max(p99LatencyMs, 1) / Math.max(medianLatencyMs, 1)) / P99_Z_SCORE;
+        this.completionTokens = completionTokens;
+        this.tokensPerSecond = tokensPerSecond;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+    }
+
+    @Override
+    public ChatResponse doChat(ChatRequest request) {
+        requests.incrementAndGet();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        double outcome = random.nextDouble();
+        if (outcome < rateLimitRate) {
+            rateLimits.incrementAndGet();
+            sleep(5);
+            throw new HttpException(429, "Rate limit reached for requests. Please try again in 200ms.");
+        }
+        if (outcome < rateLimitRate + errorRate) {
+            errors.incrementAndGet();
+            sleep(sampleLatencyMs(random));
+            throw new HttpException(500, "The server had an error while processing your request.");
+        }
+
+        long generationMs = tokensPerSecond > 0 ? Math.round(completionTokens * 1000 / tokensPerSecond) : 0;
+        sleep(sampleLatencyMs(random) + generationMs);
+        return ChatResponse.builder()
+                .aiMessage(AiMessage.from(ANSWER_WORD.repeat(completionTokens).trim()))
+                .tokenUsage(new TokenUsage(estimatePromptTokens(request.messages()), completionTokens))
+                .build();
+    }
+
+    // Abstract in this langchain4j version although deprecated; chat(...) calls doChat directly
+    @SuppressWarnings("removal")
+    @Override
+    public Response<AiMessage> generate(List<ChatMessage> messages) {
+        ChatResponse response = doChat(ChatRequest.builder().messages(messages).build());
+        return Response.from(response.aiMessage(), response.tokenUsage());
+    }
+
+    private static int estimatePromptTokens(List<ChatMessage> messages) {
+        // Roughly four characters per token
+        return messages.stream()
+                .mapToInt(message -> message instanceof UserMessage user ? user.singleText().length() / 4 : 0)
+                .sum();
+    }
+
+    private long sampleLatencyMs(ThreadLocalRandom random) {
+        return Math.round(Math.exp(latencyMu + latencySigma * random.nextGaussian()));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Simulated request interrupted", e);
+        }
+    }
+
+    int getRequests() {
+        return requests.get();
+    }
+
+    int getErrors() {
+        return errors.get();
+    }
+
+    int getRateLimits() {
+        return rateLimits.get();
+    }
+}
@@ -0,0 +1,153 @@
+package com.aimitjava;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Runs the complete {@link PdfSummarizationApp} flow against a {@link SimulatedChatModel}, so
+ * concurrency settings can be sized and throughput regressions caught without API costs.
+ *
+ * <p>Load test settings are read from {@code load.*} system properties. Every application
+ * setting, such as {@code pipeline.summarization.parallelism}, can be overridden the same way.
+ */
+public class ThroughputLoadTest {
+
+    public static void main(String[] args) throws IOException {
+        int documents = Integer.getInteger("load.documents", 50);
+        int pages = Integer.getInteger("load.pages", 20);
+        String layout = System.getProperty("load.layout", "text");
+        SimulatedChatModel model = new SimulatedChatModel(
+                Long.getLong("load.latency.median.ms", 400),
+                Long.getLong("load.latency.p99.ms", 2000),
+                Integer.getInteger("load.completion.tokens", 150),
+                Double.parseDouble(System.getProperty("load.tokens.per.second", "200")),
+                Double.parseDouble(System.getProperty("load.error.rate", "0.01")),
+                Double.parseDouble(System.getProperty("load.rate.limit.rate", "0.02")));
+        Path report = Path.of(System.getProperty("load.report", "build/out/reports/load-test/results.json"));
+
+        Path directory = Files.createTempDirectory("load-test");
+        try {
+            File template = BenchmarkFiles.pdf(layout, pages);
+            for (int i = 0; i < documents; i++) {
+                Files.copy(template.toPath(), directory.resolve("document-" + i + ".pdf"));
+            }
+
+            Map<String, Object> results = run(directory, model);
+            results.put("documents", documents);
+            results.put("pagesPerDocument", pages);
+            results.put("layout", layout);
+
+            ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+            String json = mapper.writeValueAsString(results);
+            Files.createDirectories(report.toAbsolutePath().getParent());
+            Files.writeString(report, json);
+            System.out.println(json);
+            System.out.println("Load test results written to " + report.toAbsolutePath());
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    private static Map<String, Object> run(Path directory, SimulatedChatModel model) {
+        Configuration config = new Configuration(new EnvironmentProvider(key -> switch (key) {
+            case "pdf.directory" -> directory.toString();
+            case "pdf.max.size.mb" -> "0";
+            // Every run has to reach the model, a warm cache would measure nothing
+            case "cache.enabled", "checkpoint.enabled" -> "false";
+            case "pipeline.enabled" -> System.getProperty(key, "true");
+            default -> System.getProperty(key);
+        }));
+
+        Map<File, Long> startTimes = new ConcurrentHashMap<>();
+        List<Long> latencies = new ArrayList<>();
+        PdfDocumentHandler documentHandler = new PdfDocumentHandler() {
+            @Override
+            public String extractText(File pdfFile) throws IOException {
+                startTimes.putIfAbsent(pdfFile, System.nanoTime());
+                return super.extractText(pdfFile);
+            }
+
+            @Override
+            public Stream<String> streamText(File pdfFile, int pagesPerBatch) throws IOException {
+                startTimes.putIfAbsent(pdfFile, System.nanoTime());
+                return super.streamText(pdfFile, pagesPerBatch);
+            }
+        };
+        MarkdownWriter writer = new MarkdownWriter() {
+            @Override
+            public void writeSummary(String summary, File originalPdf) throws IOException {
+                super.writeSummary(summary, originalPdf);
+                long latency = System.nanoTime() - startTimes.get(originalPdf);
+                synchronized (latencies) {
+                    latencies.add(latency);
+                }
+            }
+        };
+        PdfSummarizationApp app = new PdfSummarizationApp(new PdfFileFinder(config), documentHandler,
+                new OpenAiSummarizer(model, config), writer, config);
+
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long start = System.nanoTime();
+        boolean completed = true;
+        try {
+            app.run();
+        } catch (ApplicationTerminationException e) {
+            completed = false;
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        List<Long> sorted = latencies.stream().sorted().toList();
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("completed", completed);
+        results.put("summarized", sorted.size());
+        results.put("elapsedSeconds", elapsedNanos / 1e9);
+        results.put("documentsPerMinute", sorted.size() * 60e9 / elapsedNanos);
+        results.put("latencyP50Ms", percentileMs(sorted, 0.50));
+        results.put("latencyP99Ms", percentileMs(sorted, 0.99));
+        results.put("peakHeapMb", peakHeap / (1024.0 * 1024.0));
+        results.put("requests", model.getRequests());
+        results.put("simulatedErrors", model.getErrors());
+        results.put("simulatedRateLimits", model.getRateLimits());
+        results.put("summarizationParallelism", config.getSummarizationParallelism());
+        results.put("maxConcurrentRequests", config.getOpenAiMaxConcurrentRequests());
+        return results;
+    }
+
+    private static double percentileMs(List<Long> sortedNanos, double percentile) {
+        if (sortedNanos.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sortedNanos.size()) - 1;
+        return sortedNanos.get(Math.max(index, 0)) / 1e6;
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
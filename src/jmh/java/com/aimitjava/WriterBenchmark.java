@@ -0,0 +1,64 @@
+package com.aimitjava;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link MarkdownWriter#writeSummary(String, File)} for summaries of different lengths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WriterBenchmark {
+
+    @Param({"1000", "10000"})
+    public int summaryLength;
+
+    private final MarkdownWriter writer = new MarkdownWriter();
+    private Path directory;
+    private File pdf;
+    private String summary;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("writer-benchmark");
+        pdf = Files.createFile(directory.resolve("document.pdf")).toFile();
+        summary = "A summary sentence of the benchmark document. ".repeat(summaryLength / 47 + 1)
+                .substring(0, summaryLength);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void writeSummary() throws IOException {
+        writer.writeSummary(summary, pdf);
+    }
+}
@@ -8,6 +8,11 @@ public class ApplicationTerminationException extends RuntimeException {
         this.exitCode = exitCode;
     }
 
+    public ApplicationTerminationException(String message, int exitCode, Throwable cause) {
+        super(message, cause);
+        this.exitCode = exitCode;
+    }
+
     public int getExitCode() {
         return exitCode;
     }
@@ -0,0 +1,251 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Summarizes many documents through batch jobs instead of individual chat requests. All chunk
+ * prompts of all documents go into the first batches; the combine prompts of every reduce level
+ * follow as further batches until each document is down to a single summary. Like regular runs,
+ * chunk prompts go to the map tier and combine prompts to the reduce tier. Prompts are split
+ * into several jobs where a single job would exceed the limits of the Batch API. As in the other
+ * modes, chunks recorded by an interrupted run or held by the chunk cache are not submitted again.
+ */
+class BatchSummarizer {
+    // Limits of a single batch job; the size limit keeps some room for the request envelope
+    static final int MAX_REQUESTS_PER_BATCH = 50_000;
+    static final long MAX_BYTES_PER_BATCH = 190L * 1024 * 1024;
+    private static final int REQUEST_OVERHEAD_BYTES = 200;
+
+    private final OpenAiSummarizer summarizer;
+    private final BatchTransport transport;
+    private final Duration pollInterval;
+    private final int maxRequestsPerBatch;
+    private final long maxBytesPerBatch;
+
+    BatchSummarizer(OpenAiSummarizer summarizer, BatchTransport transport, Duration pollInterval) {
+        this(summarizer, transport, pollInterval, MAX_REQUESTS_PER_BATCH, MAX_BYTES_PER_BATCH);
+    }
+
+    // Constructor for testing with small batch limits
+    BatchSummarizer(OpenAiSummarizer summarizer, BatchTransport transport, Duration pollInterval,
+                    int maxRequestsPerBatch, long maxBytesPerBatch) {
+        this.summarizer = summarizer;
+        this.transport = transport;
+        this.pollInterval = pollInterval;
+        this.maxRequestsPerBatch = maxRequestsPerBatch;
+        this.maxBytesPerBatch = maxBytesPerBatch;
+    }
+
+    /**
+     * Summarizes the extracted text of every job without recording chunk progress.
+     *
+     * @see #summarize(List, Function)
+     */
+    Map<PdfJob, String> summarize(List<PdfJob> jobs) throws IOException {
+        return summarize(jobs, job -> SummaryProgress.NONE);
+    }
+
+    /**
+     * Summarizes the extracted text of every job and stores the result in the job. A document
+     * whose batch failed or that is missing a response is left without a summary and returned,
+     * the other documents are still summarized. Chunk summaries that came back are recorded even
+     * for failed documents, so summarizing them again only sends the missing chunks.
+     *
+     * @param jobs Jobs with extracted text
+     * @param progressOf The progress of a document, holding the chunks of an interrupted run
+     * @return The jobs that got no summary, with the reason
+     * @throws IOException If waiting for the batches is interrupted
+     */
+    Map<PdfJob, String> summarize(List<PdfJob> jobs, Function<PdfJob, SummaryProgress> progressOf)
+            throws IOException {
+        Map<PdfJob, String> failed = new LinkedHashMap<>();
+        Map<PdfJob, List<String>> prompts = new LinkedHashMap<>();
+        Map<PdfJob, List<String>> known = new HashMap<>();
+        Map<PdfJob, SummaryProgress> progress = new HashMap<>();
+        for (PdfJob job : jobs) {
+            List<String> chunkPrompts = summarizer.chunkPrompts(job.getText());
+            if (chunkPrompts.isEmpty()) {
+                // Blank documents get their placeholder summary without a request
+                job.setSummary(summarizer.summarize(job.getText()));
+            } else {
+                SummaryProgress documentProgress = progressOf.apply(job);
+                prompts.put(job, chunkPrompts);
+                progress.put(job, documentProgress);
+                known.put(job, knownChunkSummaries(chunkPrompts, documentProgress));
+            }
+        }
+
+        int level = 0;
+        while (!prompts.isEmpty()) {
+            // Only chunk summaries are recorded; combine prompts change with every chunk
+            Map<PdfJob, List<String>> summaries = runBatches(prompts, known, progress, level++, failed);
+            known = Map.of();
+            progress = Map.of();
+            prompts = new LinkedHashMap<>();
+            for (Map.Entry<PdfJob, List<String>> entry : summaries.entrySet()) {
+                if (entry.getValue().size() == 1) {
+                    entry.getKey().setSummary(entry.getValue().getFirst());
+                } else {
+                    prompts.put(entry.getKey(), summarizer.combinePrompts(entry.getValue()));
+                }
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * @return The summary of every chunk recorded by an interrupted run or held by the chunk
+     * cache, null for the chunks that still have to be submitted
+     */
+    private List<String> knownChunkSummaries(List<String> prompts, SummaryProgress progress) {
+        List<String> summaries = new ArrayList<>(prompts.size());
+        for (int i = 0; i < prompts.size(); i++) {
+            Optional<String> known = progress.completedChunk(i, prompts.get(i));
+            if (known.isEmpty()) {
+                known = summarizer.cachedChunkSummary(prompts.get(i));
+            }
+            summaries.add(known.orElse(null));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param known Summaries that are not submitted again, null where a prompt still has to be sent
+     * @param progress Records the new summaries of a document, or empty to record nothing
+     */
+    private Map<PdfJob, List<String>> runBatches(Map<PdfJob, List<String>> prompts,
+                                                 Map<PdfJob, List<String>> known,
+                                                 Map<PdfJob, SummaryProgress> progress,
+                                                 int level, Map<PdfJob, String> failed) throws IOException {
+        List<List<BatchTransport.BatchRequest>> batches = new ArrayList<>();
+        List<BatchTransport.BatchRequest> batch = new ArrayList<>();
+        long batchBytes = 0;
+        int document = 0;
+        for (Map.Entry<PdfJob, List<String>> entry : prompts.entrySet()) {
+            List<String> documentPrompts = entry.getValue();
+            List<String> documentKnown = known.get(entry.getKey());
+            for (int i = 0; i < documentPrompts.size(); i++) {
+                if (documentKnown != null && documentKnown.get(i) != null) {
+                    continue;
+                }
+                String prompt = documentPrompts.get(i);
+                long requestBytes = prompt.getBytes(StandardCharsets.UTF_8).length + REQUEST_OVERHEAD_BYTES;
+                if (!batch.isEmpty()
+                        && (batch.size() >= maxRequestsPerBatch || batchBytes + requestBytes > maxBytesPerBatch)) {
+                    batches.add(batch);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+                batch.add(new BatchTransport.BatchRequest(customId(level, document, i), prompt));
+                batchBytes += requestBytes;
+            }
+            document++;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        // Submit all jobs before waiting, so the API works on them at the same time
+        ModelTier tier = level == 0 ? ModelTier.MAP : ModelTier.REDUCE;
+        Map<String, String> results = new HashMap<>();
+        List<Submitted> submitted = new ArrayList<>();
+        Map<String, String> errors = new HashMap<>();
+        for (List<BatchTransport.BatchRequest> requests : batches) {
+            try {
+                String batchId = transport.submit(requests, tier);
+                System.out.println("⏳ Batch " + batchId + " submitted with " + requests.size() + " prompts");
+                submitted.add(new Submitted(batchId, requests));
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                fail(requests, "Batch could not be submitted: " + e.getMessage(), errors);
+            }
+        }
+        for (Submitted job : submitted) {
+            try {
+                awaitCompletion(job.batchId());
+                results.putAll(transport.results(job.batchId()));
+            } catch (InterruptedIOException e) {
+                throw e;
+            } catch (IOException e) {
+                fail(job.requests(), e.getMessage(), errors);
+            }
+        }
+
+        // Put the responses back in document and chunk order
+        Map<PdfJob, List<String>> summaries = new LinkedHashMap<>();
+        document = 0;
+        for (Map.Entry<PdfJob, List<String>> entry : prompts.entrySet()) {
+            PdfJob job = entry.getKey();
+            List<String> documentKnown = known.get(job);
+            SummaryProgress documentProgress = progress.get(job);
+            List<String> documentSummaries = new ArrayList<>();
+            for (int i = 0; i < entry.getValue().size(); i++) {
+                String summary = documentKnown != null ? documentKnown.get(i) : null;
+                if (summary == null) {
+                    String id = customId(level, document, i);
+                    summary = results.get(id);
+                    if (summary == null) {
+                        failed.putIfAbsent(job, errors.getOrDefault(id, "Batch returned no summary for "
+                                + job.getPdf().getName()));
+                        continue;
+                    }
+                    if (documentProgress != null) {
+                        String prompt = entry.getValue().get(i);
+                        documentProgress.chunkCompleted(i, prompt, summary);
+                        summarizer.rememberChunkSummary(prompt, summary);
+                    }
+                }
+                documentSummaries.add(summary);
+            }
+            if (!failed.containsKey(job)) {
+                summaries.put(job, documentSummaries);
+            }
+            document++;
+        }
+        return summaries;
+    }
+
+    private static void fail(List<BatchTransport.BatchRequest> requests, String error, Map<String, String> errors) {
+        System.err.println("Warning: " + error);
+        requests.forEach(request -> errors.put(request.customId(), error));
+    }
+
+    private void awaitCompletion(String batchId) throws IOException {
+        while (true) {
+            switch (transport.status(batchId)) {
+                case COMPLETED -> {
+                    return;
+                }
+                case FAILED -> throw new IOException("Batch " + batchId + " did not complete");
+                case IN_PROGRESS -> sleep(pollInterval);
+            }
+        }
+    }
+
+    private static void sleep(Duration duration) throws IOException {
+        try {
+            Thread.sleep(duration);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for batch");
+        }
+    }
+
+    private static String customId(int level, int document, int prompt) {
+        return "level-" + level + "-doc-" + document + "-prompt-" + prompt;
+    }
+
+    private record Submitted(String batchId, List<BatchTransport.BatchRequest> requests) {
+    }
+}
@@ -0,0 +1,53 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Submits chat prompts as an asynchronous batch job and fetches the responses once the job is done.
+ * The OpenAI Batch API is the production implementation; tests plug in a local stand-in.
+ */
+interface BatchTransport {
+
+    /**
+     * A single prompt of a batch job.
+     *
+     * @param customId Identifies the response of this prompt within the batch
+     * @param prompt The user message sent to the model
+     */
+    record BatchRequest(String customId, String prompt) {
+    }
+
+    enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        FAILED
+    }
+
+    /**
+     * Submits the prompts as one batch job.
+     *
+     * @param requests The prompts, each with a unique custom id
+     * @param tier The tier whose model answers the prompts
+     * @return The id of the created batch job
+     * @throws IOException If the job could not be submitted
+     */
+    String submit(List<BatchRequest> requests, ModelTier tier) throws IOException;
+
+    /**
+     * @param batchId The id returned by {@link #submit(List, ModelTier)}
+     * @return The current state of the batch job
+     * @throws IOException If the state could not be retrieved
+     */
+    Status status(String batchId) throws IOException;
+
+    /**
+     * Fetches the responses of a completed batch job.
+     *
+     * @param batchId The id returned by {@link #submit(List, ModelTier)}
+     * @return The response text of every successful prompt, keyed by custom id
+     * @throws IOException If the responses could not be retrieved
+     */
+    Map<String, String> results(String batchId) throws IOException;
+}
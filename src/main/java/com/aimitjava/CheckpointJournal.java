@@ -0,0 +1,258 @@
+package com.aimitjava;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append-only journal of the progress of a run. Every chunk summary and every finished document
+ * is appended as one JSON line and forced to disk, so a run that dies halfway can be restarted:
+ * finished documents are skipped and partially summarized documents only send their missing
+ * chunks before the reduce step. A torn last line from a crash is ignored when reading.
+ * <p>
+ * Chunk summaries are keyed by content, so identical PDFs share them. Finished documents are also
+ * keyed by file, because every PDF gets its own summary file even if its content is a copy.
+ */
+class CheckpointJournal implements AutoCloseable {
+    private static final String TYPE_CHUNK = "chunk";
+    private static final String TYPE_DOCUMENT = "document";
+
+    private final Path file;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> completedDocuments = ConcurrentHashMap.newKeySet();
+    private final Map<String, Map<Integer, ChunkEntry>> chunks = new ConcurrentHashMap<>();
+    private FileChannel channel;
+
+    /**
+     * Opens the journal and loads the progress recorded by earlier runs.
+     *
+     * @param file The journal file; it is created on the first write
+     * @throws IOException If an existing journal cannot be read
+     */
+    CheckpointJournal(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    private void load() throws IOException {
+        int skipped = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    apply(mapper.readTree(line));
+                } catch (JsonProcessingException e) {
+                    skipped++;
+                }
+            }
+        }
+        if (skipped > 0) {
+            System.err.println("Warning: Ignored " + skipped + " incomplete entries in checkpoint journal " + file);
+        }
+    }
+
+    private void apply(JsonNode entry) {
+        String document = entry.path("document").asText();
+        switch (entry.path("type").asText()) {
+            case TYPE_DOCUMENT -> {
+                completedDocuments.add(completedKey(document, entry.path("file").asText()));
+                chunks.remove(document);
+            }
+            case TYPE_CHUNK -> chunks.computeIfAbsent(document, key -> new ConcurrentHashMap<>())
+                    .put(entry.path("index").asInt(), new ChunkEntry(
+                            entry.path("promptHash").asText(), entry.path("summary").asText()));
+            default -> {
+                // Unknown entries from newer versions are skipped
+            }
+        }
+    }
+
+    /**
+     * @param documentKey Identifies the PDF content and summarization settings
+     * @param pdf The PDF the summary is written for
+     * @return True if the summary of the PDF was written by an earlier run
+     */
+    boolean isCompleted(String documentKey, File pdf) {
+        return completedDocuments.contains(completedKey(documentKey, pdf.getAbsolutePath()));
+    }
+
+    private static String completedKey(String documentKey, String pdfPath) {
+        return documentKey + "\n" + pdfPath;
+    }
+
+    /**
+     * @param documentKey Identifies the PDF content and summarization settings
+     * @return The progress of the document, backed by this journal
+     */
+    SummaryProgress progress(String documentKey) {
+        return new SummaryProgress() {
+            @Override
+            public Optional<String> completedChunk(int index, String prompt) {
+                ChunkEntry entry = chunks.getOrDefault(documentKey, Map.of()).get(index);
+                return entry != null && entry.promptHash().equals(Hashing.sha256(prompt))
+                        ? Optional.of(entry.summary())
+                        : Optional.empty();
+            }
+
+            @Override
+            public void chunkCompleted(int index, String prompt, String summary) {
+                ChunkEntry entry = new ChunkEntry(Hashing.sha256(prompt), summary);
+                // Appended and applied together, so a concurrent compaction sees either both or neither
+                synchronized (CheckpointJournal.this) {
+                    append(chunkLine(documentKey, index, entry));
+                    chunks.computeIfAbsent(documentKey, key -> new ConcurrentHashMap<>()).put(index, entry);
+                }
+            }
+        };
+    }
+
+    private ObjectNode chunkLine(String documentKey, int index, ChunkEntry entry) {
+        return mapper.createObjectNode()
+                .put("type", TYPE_CHUNK)
+                .put("document", documentKey)
+                .put("index", index)
+                .put("promptHash", entry.promptHash())
+                .put("summary", entry.summary());
+    }
+
+    /**
+     * Records that the summary of a PDF has been written.
+     *
+     * @param documentKey Identifies the PDF content and summarization settings
+     * @param pdf The PDF the summary was written for
+     */
+    synchronized void markCompleted(String documentKey, File pdf) {
+        append(mapper.createObjectNode()
+                .put("type", TYPE_DOCUMENT)
+                .put("document", documentKey)
+                .put("file", pdf.getAbsolutePath()));
+        completedDocuments.add(completedKey(documentKey, pdf.getAbsolutePath()));
+        chunks.remove(documentKey);
+    }
+
+    /**
+     * Rewrites the journal with only the chunk summaries of unfinished documents and forgets the
+     * finished ones. Keeps the journal of a long-running watch as small as the work in flight.
+     */
+    synchronized void compact() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            close();
+            completedDocuments.clear();
+            if (chunks.isEmpty()) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            StringBuilder lines = new StringBuilder();
+            for (Map.Entry<String, Map<Integer, ChunkEntry>> document : chunks.entrySet()) {
+                for (Map.Entry<Integer, ChunkEntry> chunk : document.getValue().entrySet()) {
+                    lines.append(mapper.writeValueAsString(
+                            chunkLine(document.getKey(), chunk.getKey(), chunk.getValue()))).append('\n');
+                }
+            }
+            try (FileChannel writer = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer content = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (content.hasRemaining()) {
+                    writer.write(content);
+                }
+                writer.force(false);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Warning: Could not compact checkpoint journal " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the journal after a run completed, so the next run starts fresh.
+     */
+    synchronized void clear() {
+        try {
+            close();
+            Files.deleteIfExists(file);
+            completedDocuments.clear();
+            chunks.clear();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not delete checkpoint journal " + file + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void append(ObjectNode entry) {
+        try {
+            if (channel == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                Files.createDirectories(parent);
+                boolean tornLine = endsWithTornLine();
+                channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+                if (tornLine) {
+                    // A crash cut the last entry short; start the next one on a fresh line
+                    channel.write(ByteBuffer.wrap(new byte[]{'\n'}));
+                }
+            }
+            ByteBuffer line = ByteBuffer.wrap((mapper.writeValueAsString(entry) + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            // The entry only counts once it is on disk
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write checkpoint journal " + file, e);
+        }
+    }
+
+    private boolean endsWithTornLine() throws IOException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel reader = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = reader.size();
+            if (size == 0) {
+                return false;
+            }
+            ByteBuffer lastByte = ByteBuffer.allocate(1);
+            reader.read(lastByte, size - 1);
+            return lastByte.get(0) != '\n';
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private record ChunkEntry(String promptHash, String summary) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.aimitjava;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Stops sending requests during a sustained outage. After the configured number of consecutive
+ * transient failures the circuit opens and calls fail immediately with
+ * {@link CircuitOpenException}. Once the open interval has passed, a single trial call is let
+ * through: success closes the circuit again, failure keeps it open for another interval.
+ * Rate limits are left to the {@link RequestScheduler} and do not count as failures.
+ */
+class CircuitBreaker {
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtNanos;
+    private boolean trialInFlight;
+
+    /**
+     * @param failureThreshold Consecutive failures that open the circuit, or 0 to never open it
+     * @param openDuration How long the circuit stays open before a trial call is allowed
+     */
+    CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    <T> T execute(Supplier<T> action) {
+        boolean trial = beforeCall();
+        try {
+            T result = action.get();
+            onSuccess();
+            return result;
+        } catch (RuntimeException e) {
+            if (OpenAiErrors.isTransient(e) && !OpenAiErrors.isRateLimited(e)) {
+                onFailure();
+            } else {
+                onNeutralOutcome(trial);
+            }
+            throw e;
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private synchronized boolean beforeCall() {
+        if (state == State.OPEN && System.nanoTime() - openedAtNanos >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+            throw new CircuitOpenException("OpenAI requests are suspended after "
+                    + consecutiveFailures + " consecutive failures");
+        }
+        if (state == State.HALF_OPEN) {
+            trialInFlight = true;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    private synchronized void onFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || (failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+            state = State.OPEN;
+            openedAtNanos = System.nanoTime();
+        }
+    }
+
+    private synchronized void onNeutralOutcome(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+}
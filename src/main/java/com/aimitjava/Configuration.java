@@ -2,6 +2,10 @@ package com.aimitjava;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
 import java.util.Properties;
 
 public class Configuration {
@@ -70,6 +74,115 @@ public class Configuration {
         return temp != null ? Double.parseDouble(temp) : 0.7;
     }
 
+    public int getOpenAiMaxConcurrentRequests() {
+        return getIntProperty("openai.max.concurrent.requests", 4);
+    }
+
+    public long getOpenAiTimeoutSeconds() {
+        return getIntProperty("openai.timeout.seconds", 60);
+    }
+
+    /**
+     * @return The base URL of an OpenAI compatible API, or null for OpenAI itself
+     */
+    public String getOpenAiBaseUrl() {
+        String url = getProperty("openai.base.url");
+        return url != null && !url.isBlank() ? url : null;
+    }
+
+    // Tier settings are empty unless configured, in which case the settings above apply
+
+    public Optional<String> getOpenAiModelName(ModelTier tier) {
+        return Optional.ofNullable(getTierProperty(tier, "model.name"));
+    }
+
+    public OptionalDouble getOpenAiTemperature(ModelTier tier) {
+        String temperature = getTierProperty(tier, "temperature");
+        return temperature != null ? OptionalDouble.of(Double.parseDouble(temperature)) : OptionalDouble.empty();
+    }
+
+    public OptionalLong getOpenAiTimeoutSeconds(ModelTier tier) {
+        String timeout = getTierProperty(tier, "timeout.seconds");
+        return timeout != null ? OptionalLong.of(Long.parseLong(timeout)) : OptionalLong.empty();
+    }
+
+    public OptionalInt getOpenAiMaxConcurrentRequests(ModelTier tier) {
+        String concurrency = getTierProperty(tier, "max.concurrent.requests");
+        return concurrency != null ? OptionalInt.of(Integer.parseInt(concurrency)) : OptionalInt.empty();
+    }
+
+    public Optional<String> getOpenAiBaseUrl(ModelTier tier) {
+        return Optional.ofNullable(getTierProperty(tier, "base.url"));
+    }
+
+    public Optional<String> getOpenAiApiKey(ModelTier tier) {
+        return Optional.ofNullable(getTierProperty(tier, "api.key"));
+    }
+
+    private String getTierProperty(ModelTier tier, String name) {
+        String value = getProperty("openai." + tier.getKey() + "." + name);
+        return value != null && !value.isBlank() ? value : null;
+    }
+
+    public int getOpenAiRateLimitRequestsPerMinute() {
+        return getIntProperty("openai.rate.limit.rpm", 0);
+    }
+
+    public int getOpenAiRateLimitTokensPerMinute() {
+        return getIntProperty("openai.rate.limit.tpm", 0);
+    }
+
+    public long getOpenAiLatencyTargetMs() {
+        return getIntProperty("openai.latency.target.ms", 0);
+    }
+
+    public int getOpenAiRetryMaxAttempts() {
+        return getIntProperty("openai.retry.max.attempts", 4);
+    }
+
+    public long getOpenAiRetryInitialDelayMs() {
+        return getIntProperty("openai.retry.initial.delay.ms", 500);
+    }
+
+    public long getOpenAiRetryMaxDelayMs() {
+        return getIntProperty("openai.retry.max.delay.ms", 30000);
+    }
+
+    public int getOpenAiCircuitFailureThreshold() {
+        return getIntProperty("openai.circuit.failure.threshold", 5);
+    }
+
+    public long getOpenAiCircuitOpenSeconds() {
+        return getIntProperty("openai.circuit.open.seconds", 30);
+    }
+
+    public int getOpenAiReduceMaxTokens() {
+        return getIntProperty("openai.reduce.max.tokens", 3000);
+    }
+
+    public int getOpenAiContextWindowTokens() {
+        // Chunks are sized for the model that summarizes them
+        return getIntProperty("openai.context.window.tokens",
+                defaultContextWindowTokens(getOpenAiModelName(ModelTier.MAP).orElse(getOpenAiModelName())));
+    }
+
+    public int getOpenAiChunkMaxTokens() {
+        return getIntProperty("openai.chunk.max.tokens", 0);
+    }
+
+    public int getOpenAiChunkOverlapTokens() {
+        return getIntProperty("openai.chunk.overlap.tokens", 200);
+    }
+
+    public String getOpenAiBatchBaseUrl() {
+        String url = getProperty("openai.batch.base.url");
+        return url != null ? url : "https://api.openai.com/v1";
+    }
+
+    public long getOpenAiBatchPollIntervalSeconds() {
+        return getIntProperty("openai.batch.poll.interval.seconds", 60);
+    }
+
     public int getPdfMaxSizeMb() {
         String size = getProperty("pdf.max.size.mb");
         return size != null ? Integer.parseInt(size) : 5;
@@ -79,4 +192,192 @@ public class Configuration {
         String dir = getProperty("pdf.directory");
         return dir != null ? dir : "./pdfs/";
     }
+
+    /**
+     * @return The include glob, or null to include all PDFs
+     */
+    public String getPdfIncludeGlob() {
+        String glob = getProperty("pdf.include.glob");
+        return glob != null && !glob.isBlank() ? glob : null;
+    }
+
+    /**
+     * @return The exclude glob, or null to exclude nothing
+     */
+    public String getPdfExcludeGlob() {
+        String glob = getProperty("pdf.exclude.glob");
+        return glob != null && !glob.isBlank() ? glob : null;
+    }
+
+    public boolean isPdfCleaningEnabled() {
+        return getBooleanProperty("pdf.cleaning.enabled", true);
+    }
+
+    public boolean isPdfStreamingEnabled() {
+        return getBooleanProperty("pdf.streaming.enabled", false);
+    }
+
+    public int getPdfStreamingPagesPerBatch() {
+        return getIntProperty("pdf.streaming.pages.per.batch", 10);
+    }
+
+    public int getPdfMemoryMaxHeapMb() {
+        return getIntProperty("pdf.memory.max.heap.mb", 0);
+    }
+
+    /**
+     * @return The directory of PDF scratch files, or null for the system temporary directory
+     */
+    public String getPdfMemoryScratchDirectory() {
+        String dir = getProperty("pdf.memory.scratch.directory");
+        return dir != null && !dir.isBlank() ? dir : null;
+    }
+
+    public int getCompressionMaxTokens() {
+        return getIntProperty("compression.max.tokens", 0);
+    }
+
+    public boolean isOutputStreamingEnabled() {
+        return getBooleanProperty("output.streaming.enabled", false);
+    }
+
+    public boolean isOutputAsyncEnabled() {
+        return getBooleanProperty("output.async.enabled", false);
+    }
+
+    public int getOutputAsyncQueueCapacity() {
+        return getIntProperty("output.async.queue.capacity", 64);
+    }
+
+    public int getOutputAsyncGroupSize() {
+        return getIntProperty("output.async.group.size", 32);
+    }
+
+    public long getOutputAsyncGroupDelayMs() {
+        return getIntProperty("output.async.group.delay.ms", 10);
+    }
+
+    public long getWatchDebounceMs() {
+        return getIntProperty("watch.debounce.ms", 2000);
+    }
+
+    public boolean isCacheEnabled() {
+        return getBooleanProperty("cache.enabled", true);
+    }
+
+    public String getCacheDirectory() {
+        String dir = getProperty("cache.directory");
+        return dir != null ? dir : "./.summary-cache/";
+    }
+
+    public int getCacheMaxSizeMb() {
+        return getIntProperty("cache.max.size.mb", 100);
+    }
+
+    public boolean isDeduplicationEnabled() {
+        return getBooleanProperty("dedup.enabled", false);
+    }
+
+    public double getDeduplicationSimilarity() {
+        String similarity = getProperty("dedup.similarity");
+        return similarity != null ? Double.parseDouble(similarity) : 0.95;
+    }
+
+    public String getDeduplicationIndexFile() {
+        String file = getProperty("dedup.index.file");
+        return file != null ? file : "./.near-duplicate-index.jsonl";
+    }
+
+    public boolean isCheckpointEnabled() {
+        return getBooleanProperty("checkpoint.enabled", true);
+    }
+
+    public String getCheckpointFile() {
+        String file = getProperty("checkpoint.file");
+        return file != null ? file : "./.summary-checkpoint.jsonl";
+    }
+
+    public boolean isContinueOnErrorEnabled() {
+        return getBooleanProperty("processing.continue.on.error", false);
+    }
+
+    public int getMaxFailures() {
+        return getIntProperty("processing.max.failures", 0);
+    }
+
+    public String getQuarantineDirectory() {
+        String dir = getProperty("processing.quarantine.directory");
+        return dir != null ? dir : "./quarantine/";
+    }
+
+    public String getFailureReportFile() {
+        String file = getProperty("processing.failure.report");
+        return file != null ? file : "./failure-report.json";
+    }
+
+    public String getMetricsFile() {
+        return getProperty("metrics.file");
+    }
+
+    public int getMetricsPort() {
+        return getIntProperty("metrics.port", 0);
+    }
+
+    /**
+     * @return The interface the metrics endpoint listens on, or null for the loopback interface
+     */
+    public String getMetricsBindAddress() {
+        String address = getProperty("metrics.bind.address");
+        return address != null && !address.isBlank() ? address : null;
+    }
+
+    public boolean isPipelineEnabled() {
+        return getBooleanProperty("pipeline.enabled", false);
+    }
+
+    public int getPipelineQueueCapacity() {
+        return getIntProperty("pipeline.queue.capacity", 16);
+    }
+
+    public int getExtractionParallelism() {
+        return getIntProperty("pipeline.extraction.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getSummarizationParallelism() {
+        return getIntProperty("pipeline.summarization.parallelism", 8);
+    }
+
+    public int getWriterParallelism() {
+        return getIntProperty("pipeline.writer.parallelism", 2);
+    }
+
+    private static int defaultContextWindowTokens(String modelName) {
+        if (modelName == null) {
+            return 4096;
+        }
+        if (modelName.startsWith("gpt-4o") || modelName.startsWith("gpt-4-turbo") || modelName.startsWith("gpt-4.1")
+                || modelName.startsWith("o1") || modelName.startsWith("o3")) {
+            return 128000;
+        }
+        if (modelName.startsWith("gpt-4-32k")) {
+            return 32768;
+        }
+        if (modelName.startsWith("gpt-4")) {
+            return 8192;
+        }
+        if (modelName.startsWith("gpt-3.5-turbo")) {
+            return 16385;
+        }
+        return 4096;
+    }
+
+    private int getIntProperty(String key, int defaultValue) {
+        String value = getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private boolean getBooleanProperty(String key, boolean defaultValue) {
+        String value = getProperty(key);
+        return value != null ? Boolean.parseBoolean(value.trim()) : defaultValue;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,206 @@
+package com.aimitjava;
+
+import dev.langchain4j.model.Tokenizer;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Shrinks a document to a token budget before it is summarized, so long documents need fewer
+ * chunks and prompt tokens. Sentences are ranked with TextRank: two sentences are connected by
+ * the words they share, and a sentence scores high if it is connected to other high scoring
+ * sentences. The best sentences are kept up to the budget, repeated sentences such as boilerplate
+ * only once, and the result keeps the document order and paragraphs.
+ */
+class ExtractiveCompressor {
+    private static final double DAMPING = 0.85;
+    private static final int MAX_ITERATIONS = 50;
+    private static final double CONVERGENCE = 1e-4;
+    private static final int MIN_WORD_LENGTH = 3;
+    // Words that occur in many sentences carry no topic, they would connect everything to everything
+    private static final double MAX_WORD_SENTENCE_SHARE = 0.2;
+    private static final int MAX_WORD_SENTENCES = 200;
+
+    private final int maxTokens;
+    private final Tokenizer tokenizer;
+    private final Metrics metrics = Metrics.getInstance();
+
+    /**
+     * @param maxTokens The token budget of the compressed text
+     * @param tokenizer Measures the text in tokens of the summarization model
+     */
+    ExtractiveCompressor(int maxTokens, Tokenizer tokenizer) {
+        if (maxTokens < 1) {
+            throw new IllegalArgumentException("Token budget must be at least 1");
+        }
+        this.maxTokens = maxTokens;
+        this.tokenizer = tokenizer;
+    }
+
+    /**
+     * @return The token budget of the compressed text
+     */
+    int getMaxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * @param text The extracted document text
+     * @return The text unchanged if it fits the budget, otherwise its most salient sentences
+     */
+    String compress(String text) {
+        if (text == null || text.isBlank()) {
+            return text;
+        }
+        int textTokens = tokenizer.estimateTokenCountInText(text);
+        if (textTokens <= maxTokens) {
+            return text;
+        }
+
+        List<Sentence> sentences = split(text);
+        double[] scores = rank(sentences);
+        Integer[] byScore = IntStream.range(0, sentences.size()).boxed().toArray(Integer[]::new);
+        // Stable sort, so sentences of equal score are taken in document order
+        Arrays.sort(byScore, Comparator.comparingDouble(index -> -scores[index]));
+
+        boolean[] keep = new boolean[sentences.size()];
+        Set<String> kept = new HashSet<>();
+        int tokens = 0;
+        for (int index : byScore) {
+            Sentence sentence = sentences.get(index);
+            if (!kept.add(sentence.normalized())) {
+                continue;
+            }
+            int sentenceTokens = tokenizer.estimateTokenCountInText(sentence.text());
+            if (tokens + sentenceTokens <= maxTokens) {
+                keep[index] = true;
+                tokens += sentenceTokens;
+            }
+        }
+        metrics.increment(Metrics.COMPRESSED_TOKENS, textTokens - tokens);
+        return join(sentences, keep);
+    }
+
+    private static List<Sentence> split(String text) {
+        List<Sentence> sentences = new ArrayList<>();
+        BreakIterator iterator = BreakIterator.getSentenceInstance(Locale.ROOT);
+        String[] paragraphs = text.split("\\n\\s*\\n");
+        for (int paragraph = 0; paragraph < paragraphs.length; paragraph++) {
+            // PDF text breaks lines inside sentences
+            String flowed = paragraphs[paragraph].strip().replaceAll("\\s+", " ");
+            iterator.setText(flowed);
+            int start = iterator.first();
+            for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator.next()) {
+                String sentence = flowed.substring(start, end).strip();
+                if (!sentence.isEmpty()) {
+                    sentences.add(new Sentence(paragraph, sentence, words(sentence)));
+                }
+            }
+        }
+        return sentences;
+    }
+
+    private static Set<String> words(String sentence) {
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : sentence.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() >= MIN_WORD_LENGTH) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static double[] rank(List<Sentence> sentences) {
+        int count = sentences.size();
+        Map<String, List<Integer>> sentencesByWord = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            for (String word : sentences.get(i).words()) {
+                sentencesByWord.computeIfAbsent(word, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Count the shared words of every connected pair of sentences
+        int maxSentencesPerWord = Math.min(MAX_WORD_SENTENCES,
+                Math.max(2, (int) (count * MAX_WORD_SENTENCE_SHARE)));
+        List<Map<Integer, Double>> edges = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            edges.add(new HashMap<>());
+        }
+        for (List<Integer> containing : sentencesByWord.values()) {
+            if (containing.size() < 2 || containing.size() > maxSentencesPerWord) {
+                continue;
+            }
+            for (int a = 0; a < containing.size(); a++) {
+                for (int b = a + 1; b < containing.size(); b++) {
+                    edges.get(containing.get(a)).merge(containing.get(b), 1.0, Double::sum);
+                    edges.get(containing.get(b)).merge(containing.get(a), 1.0, Double::sum);
+                }
+            }
+        }
+
+        // Normalize by sentence length, so long sentences do not win by size alone
+        double[] outWeights = new double[count];
+        for (int i = 0; i < count; i++) {
+            double lengthI = Math.log(1 + sentences.get(i).words().size());
+            for (Map.Entry<Integer, Double> edge : edges.get(i).entrySet()) {
+                double lengthJ = Math.log(1 + sentences.get(edge.getKey()).words().size());
+                edge.setValue(edge.getValue() / (lengthI + lengthJ));
+                outWeights[i] += edge.getValue();
+            }
+        }
+
+        double[] scores = new double[count];
+        Arrays.fill(scores, 1.0);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[] next = new double[count];
+            double change = 0;
+            for (int i = 0; i < count; i++) {
+                double incoming = 0;
+                for (Map.Entry<Integer, Double> edge : edges.get(i).entrySet()) {
+                    int j = edge.getKey();
+                    incoming += edge.getValue() / outWeights[j] * scores[j];
+                }
+                next[i] = (1 - DAMPING) + DAMPING * incoming;
+                change = Math.max(change, Math.abs(next[i] - scores[i]));
+            }
+            scores = next;
+            if (change < CONVERGENCE) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    private static String join(List<Sentence> sentences, boolean[] keep) {
+        StringBuilder text = new StringBuilder();
+        int paragraph = -1;
+        for (int i = 0; i < sentences.size(); i++) {
+            if (!keep[i]) {
+                continue;
+            }
+            Sentence sentence = sentences.get(i);
+            if (!text.isEmpty()) {
+                text.append(sentence.paragraph() != paragraph ? "\n\n" : " ");
+            }
+            text.append(sentence.text());
+            paragraph = sentence.paragraph();
+        }
+        return text.toString();
+    }
+
+    private record Sentence(int paragraph, String text, Set<String> words) {
+        String normalized() {
+            return String.join(" ", words);
+        }
+    }
+}
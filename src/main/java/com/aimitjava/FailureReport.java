@@ -0,0 +1,153 @@
+package com.aimitjava;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the documents that failed during a run that continues on errors. PDFs that cannot be
+ * read are moved to a quarantine directory, so the next run does not trip over them again, and all
+ * failures are written as a JSON report at the end of the run.
+ */
+class FailureReport {
+
+    /**
+     * @param file The path of the failed PDF when it was discovered
+     * @param stage The processing step that failed
+     * @param error The type of the underlying error
+     * @param message The error message
+     * @param quarantinedTo Where the PDF was moved, or null if it was left in place
+     */
+    record Failure(String file, String stage, String error, String message, String quarantinedTo) {
+    }
+
+    private final Path pdfRoot;
+    private final Path quarantineDirectory;
+    private final Instant startedAt = Instant.now();
+    private final List<Failure> failures = new ArrayList<>();
+
+    /**
+     * @param pdfRoot The PDF directory; quarantined files keep their path relative to it
+     * @param quarantineDirectory Where failed PDFs are moved, or null to leave them in place
+     */
+    FailureReport(Path pdfRoot, Path quarantineDirectory) {
+        this.pdfRoot = pdfRoot.toAbsolutePath().normalize();
+        this.quarantineDirectory = quarantineDirectory;
+    }
+
+    /**
+     * Records a failed document and moves it to quarantine if the document itself is at fault.
+     * Safe to call from pipeline workers.
+     *
+     * @param pdf The failed PDF
+     * @param stage The processing step that failed
+     * @param error The error raised by the step
+     * @return The recorded failure
+     */
+    Failure record(File pdf, String stage, RuntimeException error) {
+        // Processing failures wrap the I/O error that caused them
+        Throwable cause = error instanceof ApplicationTerminationException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        boolean documentFault = isDocumentFault(stage, cause);
+        if (cause instanceof PdfExtractionException) {
+            // Report the error of the PDF library, as extraction failures of the extract stage do
+            cause = cause.getCause();
+        }
+        Failure failure = new Failure(pdf.getPath(), stage, cause.getClass().getSimpleName(),
+                cause.getMessage(), documentFault ? quarantine(pdf) : null);
+        synchronized (failures) {
+            failures.add(failure);
+        }
+        return failure;
+    }
+
+    /**
+     * API outages, exhausted retries and write errors say nothing about the PDF, which stays in
+     * place so the next run picks it up again. In streaming mode a broken PDF only fails once its
+     * pages are read while summarizing.
+     */
+    private static boolean isDocumentFault(String stage, Throwable cause) {
+        return "extract".equals(stage) || cause instanceof PdfTooLargeException
+                || cause instanceof PdfExtractionException;
+    }
+
+    int getFailureCount() {
+        synchronized (failures) {
+            return failures.size();
+        }
+    }
+
+    List<Failure> getFailures() {
+        synchronized (failures) {
+            return List.copyOf(failures);
+        }
+    }
+
+    private String quarantine(File pdf) {
+        if (quarantineDirectory == null || !pdf.exists()) {
+            return null;
+        }
+
+        Path source = pdf.toPath().toAbsolutePath().normalize();
+        Path relative = source.startsWith(pdfRoot) ? pdfRoot.relativize(source) : source.getFileName();
+        Path target = quarantineDirectory.resolve(relative);
+        try {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                target = target.resolveSibling(System.currentTimeMillis() + "-" + target.getFileName());
+            }
+            Files.move(source, target);
+            return target.toString();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not quarantine " + pdf.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the report as JSON.
+     *
+     * @param file The report file
+     * @param processed The number of PDFs the run attempted
+     * @param maxFailures The number of failures the run tolerates
+     * @throws IOException If the report cannot be written
+     */
+    void write(Path file, int processed, int maxFailures) throws IOException {
+        List<Failure> failed = getFailures();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("finishedAt", Instant.now().toString());
+        report.put("processed", processed);
+        report.put("succeeded", processed - failed.size());
+        report.put("failed", failed.size());
+        report.put("maxFailures", maxFailures);
+        report.put("thresholdExceeded", failed.size() > maxFailures);
+        report.put("failures", failed);
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(temp.toFile(), report);
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
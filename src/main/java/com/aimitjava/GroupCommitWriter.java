@@ -0,0 +1,217 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes files on a background thread, so the threads producing them never wait for the file
+ * system. Queued files are committed in groups: every file is written to a temporary sibling,
+ * the whole group is synced to disk, and only then is every file renamed into place. Readers
+ * therefore only ever see complete files, and one directory sync covers all files of a group.
+ */
+class GroupCommitWriter implements AutoCloseable {
+    private static final String TEMP_SUFFIX = ".partial";
+    private static final PendingFile END_OF_INPUT = new PendingFile(null, null, null);
+
+    private final BlockingQueue<PendingFile> queue;
+    private final int maxGroupSize;
+    private final long maxGroupDelayNanos;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    /**
+     * @param queueCapacity The number of files that may wait for the writer before {@link #submit} blocks
+     * @param maxGroupSize The maximum number of files committed together
+     * @param maxGroupDelay How long the writer waits for further files before it commits a group
+     */
+    GroupCommitWriter(int queueCapacity, int maxGroupSize, Duration maxGroupDelay) {
+        if (queueCapacity < 1 || maxGroupSize < 1) {
+            throw new IllegalArgumentException("Queue capacity and group size must be at least 1");
+        }
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxGroupSize = maxGroupSize;
+        this.maxGroupDelayNanos = maxGroupDelay.toNanos();
+        this.thread = Thread.ofPlatform().name("group-commit-writer").daemon().start(this::run);
+    }
+
+    /**
+     * Queues a file for writing. Only blocks while the queue is full.
+     *
+     * @param target The file to create or replace
+     * @param content The complete file content
+     * @return Completes with the target once the file is durably in place, or exceptionally with
+     * the {@link IOException} that prevented it
+     */
+    CompletableFuture<Path> submit(Path target, String content) {
+        if (closed) {
+            throw new IllegalStateException("Writer is closed");
+        }
+        PendingFile file = new PendingFile(target, content, new CompletableFuture<>());
+        try {
+            queue.put(file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing " + target, e);
+        }
+        return file.done();
+    }
+
+    /**
+     * Commits all queued files and stops the writer thread.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END_OF_INPUT);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<PendingFile> group = new ArrayList<>(maxGroupSize);
+        boolean endOfInput = false;
+        try {
+            while (!endOfInput) {
+                PendingFile first = queue.take();
+                if (first == END_OF_INPUT) {
+                    return;
+                }
+                group.add(first);
+                endOfInput = collect(group);
+                commit(group);
+                group.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IOException error = new IOException("Writer interrupted");
+            group.forEach(file -> file.done().completeExceptionally(error));
+        }
+    }
+
+    /**
+     * Adds files that arrive within the group delay, up to the group size.
+     *
+     * @return True if the end of input was reached
+     */
+    private boolean collect(List<PendingFile> group) throws InterruptedException {
+        long deadline = System.nanoTime() + maxGroupDelayNanos;
+        while (group.size() < maxGroupSize) {
+            PendingFile next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return false;
+            }
+            if (next == END_OF_INPUT) {
+                return true;
+            }
+            group.add(next);
+        }
+        return false;
+    }
+
+    private void commit(List<PendingFile> group) {
+        // Write every file before syncing any, so the disk can flush the whole group in one go
+        Map<PendingFile, FileChannel> open = new LinkedHashMap<>();
+        for (PendingFile file : group) {
+            try {
+                open.put(file, writeTemp(file));
+            } catch (IOException | RuntimeException e) {
+                fail(file, e);
+            }
+        }
+
+        List<PendingFile> synced = new ArrayList<>();
+        open.forEach((file, channel) -> {
+            try (channel) {
+                channel.force(true);
+                synced.add(file);
+            } catch (IOException | RuntimeException e) {
+                fail(file, e);
+            }
+        });
+
+        Set<Path> directories = new LinkedHashSet<>();
+        List<PendingFile> renamed = new ArrayList<>();
+        for (PendingFile file : synced) {
+            try {
+                try {
+                    Files.move(file.temp(), file.target(),
+                            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(file.temp(), file.target(), StandardCopyOption.REPLACE_EXISTING);
+                }
+                directories.add(file.target().toAbsolutePath().getParent());
+                renamed.add(file);
+            } catch (IOException | RuntimeException e) {
+                fail(file, e);
+            }
+        }
+
+        // One sync per directory makes the renames of the whole group durable
+        directories.forEach(GroupCommitWriter::syncDirectory);
+        renamed.forEach(file -> file.done().complete(file.target()));
+    }
+
+    private static FileChannel writeTemp(PendingFile file) throws IOException {
+        FileChannel channel = FileChannel.open(file.temp(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(file.content().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            return channel;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void fail(PendingFile file, Exception error) {
+        try {
+            Files.deleteIfExists(file.temp());
+        } catch (IOException e) {
+            // Left behind, it is overwritten by the next attempt
+        }
+        file.done().completeExceptionally(error instanceof IOException
+                ? error
+                : new IOException("Failed to write " + file.target(), error));
+    }
+
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened for syncing on every platform, the renames still happened
+        }
+    }
+
+    private record PendingFile(Path target, String content, CompletableFuture<Path> done) {
+        Path temp() {
+            return target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.aimitjava;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+final class Hashing {
+    private static final String ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private Hashing() {
+        // prevent instantiation
+    }
+
+    /**
+     * Hashes the given text.
+     *
+     * @param text The text to hash
+     * @return The SHA-256 hash as lowercase hex string
+     */
+    static String sha256(String text) {
+        MessageDigest digest = newDigest();
+        return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Hashes the content of a file without loading it into memory.
+     *
+     * @param file The file to hash
+     * @return The SHA-256 hash as lowercase hex string
+     * @throws IOException If the file cannot be read
+     */
+    static String sha256(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        try (InputStream input = Files.newInputStream(file.toPath())) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    }
+}
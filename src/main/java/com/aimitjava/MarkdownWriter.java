@@ -2,13 +2,18 @@ package com.aimitjava;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 public class MarkdownWriter {
-    private static final String TEMPLATE = """
+    private static final String HEADER_TEMPLATE = """
         # Summary for %s
 
         **Original File:** %s  
@@ -18,13 +23,18 @@ public class MarkdownWriter {
 
         ## Summary
 
-        %s
+        """;
+
+    private static final String FOOTER = """
+
 
         ---
 
         *Generated using LangChain4j & OpenAI GPT*
         """;
 
+    private static final String PARTIAL_SUFFIX = ".partial";
+
     /**
      * Writes a summary to a Markdown file in the same directory as the original PDF.
      *
@@ -38,21 +48,133 @@ public class MarkdownWriter {
             throw new IllegalArgumentException("Original PDF file must exist");
         }
 
+        // Create markdown content
+        String markdownContent = render(summary, originalPdf);
+
+        // Create markdown file path
+        Path markdownPath = summaryPath(originalPdf);
+        Path partialPath = markdownPath.resolveSibling(markdownPath.getFileName() + PARTIAL_SUFFIX);
+
+        // Write the file next to its final name and move it into place, so readers never see half of it
+        Files.writeString(partialPath, markdownContent);
+        try {
+            Files.move(partialPath, markdownPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partialPath, markdownPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Creates the Markdown document for a summary without writing it.
+     *
+     * @param summary The generated summary text
+     * @param originalPdf The original PDF file
+     * @return The content of the summary file
+     */
+    public String render(String summary, File originalPdf) {
+        return header(originalPdf) + summary + FOOTER;
+    }
+
+    /**
+     * @param originalPdf The original PDF file
+     * @return The path of the summary file, next to the PDF
+     */
+    public Path summaryPath(File originalPdf) {
+        return originalPdf.toPath().resolveSibling(originalPdf.getName() + ".md");
+    }
+
+    /**
+     * Starts a summary file that is filled while the summary is generated. The text is written to
+     * a {@code .md.partial} file next to the PDF, which can be followed with {@code tail -f}, and
+     * renamed to the final name in one step once the summary is complete.
+     *
+     * @param originalPdf The original PDF file
+     * @return The open summary; it must be committed, otherwise closing it discards the file
+     * @throws IOException If the partial file cannot be created
+     * @throws IllegalArgumentException If the originalPdf is null or doesn't exist
+     */
+    public SummaryStream openSummary(File originalPdf) throws IOException {
+        if (originalPdf == null || !originalPdf.exists()) {
+            throw new IllegalArgumentException("Original PDF file must exist");
+        }
+
+        Path target = summaryPath(originalPdf);
+        Path partial = target.resolveSibling(target.getFileName() + PARTIAL_SUFFIX);
+        return new SummaryStream(target, partial, header(originalPdf));
+    }
+
+    private static String header(File originalPdf) {
         String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         String filename = originalPdf.getName();
+        return String.format(HEADER_TEMPLATE, filename, filename, timestamp);
+    }
 
-        // Create markdown content
-        String markdownContent = String.format(TEMPLATE,
-                filename,
-                filename,
-                timestamp,
-                summary
-        );
+    /**
+     * A summary file that is written while the summary is generated.
+     */
+    public static class SummaryStream implements AutoCloseable {
+        private final Path target;
+        private final Path partial;
+        private final Writer writer;
+        private boolean started;
+        private boolean committed;
 
-        // Create markdown file path
-        Path markdownPath = originalPdf.toPath().resolveSibling(filename + ".md");
+        private SummaryStream(Path target, Path partial, String header) throws IOException {
+            this.target = target;
+            this.partial = partial;
+            this.writer = Files.newBufferedWriter(partial, StandardCharsets.UTF_8);
+            writer.write(header);
+            writer.flush();
+        }
+
+        /**
+         * Appends the next piece of the summary and flushes it, so readers of the partial file see it.
+         *
+         * @param text The next piece of the summary
+         * @throws UncheckedIOException If the text cannot be written
+         */
+        public void append(String text) {
+            try {
+                writer.write(text);
+                writer.flush();
+                started = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write " + partial, e);
+            }
+        }
 
-        // Write the file
-        Files.writeString(markdownPath, markdownContent);
+        /**
+         * @return True if any part of the summary has been appended
+         */
+        public boolean hasSummaryText() {
+            return started;
+        }
+
+        /**
+         * Completes the file and moves it to its final name.
+         *
+         * @throws IOException If the file cannot be completed or moved
+         */
+        public void commit() throws IOException {
+            writer.write(FOOTER);
+            writer.close();
+            try {
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+        }
+
+        /**
+         * Discards the partial file unless the summary has been committed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                writer.close();
+                Files.deleteIfExists(partial);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,182 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects stage timings and counters of the whole process and renders them in the Prometheus
+ * text exposition format. Recording is lock-free, so the pipeline workers can update the same
+ * series concurrently.
+ */
+public class Metrics {
+    static final String STAGE_DURATION = "pdfsum_stage_duration_seconds";
+    static final String DOCUMENTS = "pdfsum_documents_total";
+    static final String PAGES = "pdfsum_pages_total";
+    static final String CHARACTERS = "pdfsum_characters_total";
+    static final String CHUNKS = "pdfsum_chunks_total";
+    static final String PROMPT_TOKENS = "pdfsum_prompt_tokens_total";
+    static final String COMPLETION_TOKENS = "pdfsum_completion_tokens_total";
+    static final String RETRIES = "pdfsum_retries_total";
+    static final String CACHE_HITS = "pdfsum_cache_hits_total";
+    static final String CACHE_MISSES = "pdfsum_cache_misses_total";
+    static final String COMPRESSED_TOKENS = "pdfsum_compression_removed_tokens_total";
+
+    private static final Map<String, String> HELP = Map.ofEntries(
+            Map.entry(STAGE_DURATION, "Time spent per processing stage"),
+            Map.entry(DOCUMENTS, "Summaries written"),
+            Map.entry(PAGES, "PDF pages loaded"),
+            Map.entry(CHARACTERS, "Characters of extracted text sent to summarization"),
+            Map.entry(CHUNKS, "Chunks the documents were split into"),
+            Map.entry(PROMPT_TOKENS, "Prompt tokens sent to the chat model, as reported by the API"),
+            Map.entry(COMPLETION_TOKENS, "Completion tokens received from the chat model, as reported by the API"),
+            Map.entry(RETRIES, "Chat requests sent again after a transient failure"),
+            Map.entry(CACHE_HITS, "Summaries served from a cache"),
+            Map.entry(CACHE_MISSES, "Summaries not found in a cache"),
+            Map.entry(COMPRESSED_TOKENS, "Estimated tokens removed by extractive compression"));
+
+    private static Metrics instance;
+
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, StageTimer> timers = new ConcurrentSkipListMap<>();
+
+    // For testing
+    Metrics() {
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (instance == null) {
+            instance = new Metrics();
+        }
+        return instance;
+    }
+
+    // For testing
+    static synchronized void reset() {
+        instance = null;
+    }
+
+    public void increment(String counter) {
+        increment(counter, 1);
+    }
+
+    public void increment(String counter, long amount) {
+        counters.computeIfAbsent(counter, name -> new LongAdder()).add(amount);
+    }
+
+    /**
+     * Adds to a counter series with a single label, e.g. the cache a hit came from.
+     */
+    public void increment(String counter, String label, String value, long amount) {
+        increment(counter + "{" + label + "=\"" + value + "\"}", amount);
+    }
+
+    /**
+     * Starts timing one execution of a stage. The time is recorded when the timer is stopped.
+     *
+     * @param stage The stage name, exported as the {@code stage} label
+     * @return The running timer
+     */
+    public Timer startTimer(String stage) {
+        return new Timer(timers.computeIfAbsent(stage, name -> new StageTimer()), System.nanoTime());
+    }
+
+    long getCount(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder != null ? adder.sum() : 0;
+    }
+
+    long getTimerCount(String stage) {
+        StageTimer timer = timers.get(stage);
+        return timer != null ? timer.count.sum() : 0;
+    }
+
+    /**
+     * @return All series in the Prometheus text exposition format
+     */
+    public String toPrometheusText() {
+        StringBuilder text = new StringBuilder();
+        if (!timers.isEmpty()) {
+            appendHeader(text, STAGE_DURATION, "summary");
+            timers.forEach((stage, timer) -> {
+                String labels = "{stage=\"" + stage + "\"}";
+                text.append(STAGE_DURATION).append("_sum").append(labels).append(' ')
+                        .append(timer.nanos.sum() / 1e9).append('\n');
+                text.append(STAGE_DURATION).append("_count").append(labels).append(' ')
+                        .append(timer.count.sum()).append('\n');
+            });
+        }
+
+        String currentName = null;
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            String series = counter.getKey();
+            int labelStart = series.indexOf('{');
+            String name = labelStart < 0 ? series : series.substring(0, labelStart);
+            if (!name.equals(currentName)) {
+                appendHeader(text, name, "counter");
+                currentName = name;
+            }
+            text.append(series).append(' ').append(counter.getValue().sum()).append('\n');
+        }
+        return text.toString();
+    }
+
+    /**
+     * Writes all series to a file that can be picked up by the node exporter textfile collector
+     * or any other scraper. The file is replaced atomically, so readers never see partial output.
+     *
+     * @param file The target file
+     * @throws IOException If the file cannot be written
+     */
+    public void writeTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, toPrometheusText());
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void appendHeader(StringBuilder text, String name, String type) {
+        String help = HELP.get(name);
+        if (help != null) {
+            text.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        }
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static final class StageTimer {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    /**
+     * A running measurement of one stage execution.
+     */
+    public static final class Timer {
+        private final StageTimer stageTimer;
+        private final long startNanos;
+
+        private Timer(StageTimer stageTimer, long startNanos) {
+            this.stageTimer = stageTimer;
+            this.startNanos = startNanos;
+        }
+
+        public void stop() {
+            stageTimer.count.increment();
+            stageTimer.nanos.add(System.nanoTime() - startNanos);
+        }
+    }
+}
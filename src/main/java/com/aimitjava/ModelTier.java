@@ -0,0 +1,24 @@
+package com.aimitjava;
+
+/**
+ * The phase of summarization a chat request belongs to. Map requests summarize single chunks
+ * and are numerous, reduce requests combine summaries into the final one; each phase can be
+ * routed to its own model and endpoint.
+ */
+public enum ModelTier {
+    MAP("map"),
+    REDUCE("reduce");
+
+    private final String key;
+
+    ModelTier(String key) {
+        this.key = key;
+    }
+
+    /**
+     * @return The name of the tier in property keys, e.g. {@code openai.map.model.name}
+     */
+    public String getKey() {
+        return key;
+    }
+}
@@ -0,0 +1,200 @@
+package com.aimitjava;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Finds documents whose text is nearly identical to one summarized before, such as re-exports,
+ * versions with a different cover page or the same report under another name. Every document is
+ * reduced to a 64 bit SimHash over word shingles; the share of equal bits of two fingerprints
+ * approximates the similarity of the texts. Entries are appended to a JSON lines file, so the
+ * index survives between runs.
+ */
+class NearDuplicateIndex {
+    private static final int SHINGLE_WORDS = 3;
+    // Fingerprints of very short texts are too coarse to tell documents apart
+    private static final int MIN_WORDS = 50;
+
+    private final Path file;
+    private final double minSimilarity;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * @param file The index file; it is created on the first summary added
+     * @param minSimilarity The share of equal fingerprint bits, between 0 and 1, from which
+     * documents count as near-duplicates
+     * @throws IOException If an existing index cannot be read
+     */
+    NearDuplicateIndex(Path file, double minSimilarity) throws IOException {
+        if (minSimilarity <= 0 || minSimilarity > 1) {
+            throw new IllegalArgumentException("Similarity must be greater than 0 and at most 1");
+        }
+        this.file = file;
+        this.minSimilarity = minSimilarity;
+        if (Files.exists(file)) {
+            load();
+        }
+    }
+
+    private void load() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonNode entry = mapper.readTree(line);
+                    entries.add(new Entry(Long.parseUnsignedLong(entry.path("simHash").asText(), 16),
+                            entry.path("settings").asText(), entry.path("file").asText(),
+                            entry.path("summary").asText()));
+                } catch (JsonProcessingException | NumberFormatException e) {
+                    // Torn line from an interrupted run
+                }
+            }
+        }
+    }
+
+    /**
+     * @param text The extracted document text
+     * @return The fingerprint of the text, or empty if it is too short to compare reliably
+     */
+    static Optional<Long> fingerprint(String text) {
+        if (text == null) {
+            return Optional.empty();
+        }
+        List<Long> wordHashes = new ArrayList<>();
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!word.isEmpty()) {
+                wordHashes.add(hash(word));
+            }
+        }
+        if (wordHashes.size() < MIN_WORDS) {
+            return Optional.empty();
+        }
+
+        int[] weights = new int[Long.SIZE];
+        for (int i = 0; i + SHINGLE_WORDS <= wordHashes.size(); i++) {
+            long shingle = mix(wordHashes.get(i)
+                    ^ Long.rotateLeft(wordHashes.get(i + 1), 21)
+                    ^ Long.rotateLeft(wordHashes.get(i + 2), 42));
+            for (int bit = 0; bit < Long.SIZE; bit++) {
+                weights[bit] += (shingle >>> bit & 1) == 1 ? 1 : -1;
+            }
+        }
+
+        long simHash = 0;
+        for (int bit = 0; bit < Long.SIZE; bit++) {
+            if (weights[bit] > 0) {
+                simHash |= 1L << bit;
+            }
+        }
+        return Optional.of(simHash);
+    }
+
+    /**
+     * @return The share of equal bits of the two fingerprints, between 0 and 1
+     */
+    static double similarity(long first, long second) {
+        return 1 - (double) Long.bitCount(first ^ second) / Long.SIZE;
+    }
+
+    /**
+     * Looks up the most similar document summarized with the same settings.
+     *
+     * @param simHash The fingerprint of the document
+     * @param settings The summarizer fingerprint, so summaries of other models or prompts are not reused
+     * @return The closest document at or above the configured similarity
+     */
+    synchronized Optional<Match> find(long simHash, String settings) {
+        // A linear scan over 64 bit values stays fast for hundreds of thousands of documents
+        Entry best = null;
+        double bestSimilarity = 0;
+        for (Entry entry : entries) {
+            double similarity = similarity(simHash, entry.simHash());
+            if (similarity >= minSimilarity && similarity > bestSimilarity
+                    && Objects.equals(entry.settings(), settings)) {
+                best = entry;
+                bestSimilarity = similarity;
+            }
+        }
+        return best != null
+                ? Optional.of(new Match(best.file(), best.summary(), bestSimilarity))
+                : Optional.empty();
+    }
+
+    /**
+     * Adds a summarized document to the index.
+     *
+     * @param simHash The fingerprint of the document
+     * @param settings The summarizer fingerprint
+     * @param fileName The name of the PDF, reported when the summary is reused
+     * @param summary The summary of the document
+     */
+    synchronized void add(long simHash, String settings, String fileName, String summary) {
+        ObjectNode line = mapper.createObjectNode()
+                .put("simHash", Long.toHexString(simHash))
+                .put("settings", settings)
+                .put("file", fileName)
+                .put("summary", summary);
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(file, mapper.writeValueAsString(line) + "\n", StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not update near-duplicate index " + file + ": " + e.getMessage());
+        }
+        entries.add(new Entry(simHash, settings, fileName, summary));
+    }
+
+    private static long hash(String word) {
+        // FNV-1a, spread by the mixing step below
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        // Finalizer of MurmurHash3, so every input bit affects every output bit
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * A previously summarized document that is nearly identical.
+     *
+     * @param file The name of the matching PDF
+     * @param summary Its summary
+     * @param similarity The estimated similarity, between 0 and 1
+     */
+    record Match(String file, String summary, double similarity) {
+    }
+
+    private record Entry(long simHash, String settings, String file, String summary) {
+    }
+}
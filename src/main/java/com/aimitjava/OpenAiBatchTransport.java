@@ -0,0 +1,186 @@
+package com.aimitjava;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Runs batch jobs through the OpenAI Batch API: the prompts are uploaded as a JSONL file of
+ * chat completion requests, which the API processes within the completion window at a lower price.
+ * Each job is answered by the model and temperature of its tier; all jobs share the batch endpoint
+ * and the default API key.
+ */
+class OpenAiBatchTransport implements BatchTransport {
+    private static final String COMPLETION_WINDOW = "24h";
+    private static final String CHAT_COMPLETIONS_ENDPOINT = "/v1/chat/completions";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofMinutes(5);
+
+    private final HttpClient httpClient;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final String apiKey;
+    private final Map<ModelTier, BatchModel> models;
+
+    /**
+     * @param name The model that answers the prompts
+     * @param temperature The sampling temperature
+     */
+    record BatchModel(String name, double temperature) {
+    }
+
+    OpenAiBatchTransport(Configuration config) {
+        this(config.getOpenAiBatchBaseUrl(), config.getOpenAiApiKey(), tierModels(config));
+    }
+
+    // Constructor for testing against a local server
+    OpenAiBatchTransport(String baseUrl, String apiKey, String modelName, double temperature) {
+        this(baseUrl, apiKey, Map.of(
+                ModelTier.MAP, new BatchModel(modelName, temperature),
+                ModelTier.REDUCE, new BatchModel(modelName, temperature)));
+    }
+
+    // Constructor for testing against a local server with tiered models
+    OpenAiBatchTransport(String baseUrl, String apiKey, Map<ModelTier, BatchModel> models) {
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.apiKey = apiKey;
+        this.models = Map.copyOf(models);
+    }
+
+    private static Map<ModelTier, BatchModel> tierModels(Configuration config) {
+        Map<ModelTier, BatchModel> models = new EnumMap<>(ModelTier.class);
+        for (ModelTier tier : ModelTier.values()) {
+            models.put(tier, new BatchModel(config.getOpenAiModelName(tier).orElse(config.getOpenAiModelName()),
+                    config.getOpenAiTemperature(tier).orElse(config.getOpenAiTemperature())));
+        }
+        return models;
+    }
+
+    @Override
+    public String submit(List<BatchRequest> requests, ModelTier tier) throws IOException {
+        String fileId = uploadInputFile(toJsonl(requests, models.get(tier)));
+
+        ObjectNode body = mapper.createObjectNode()
+                .put("input_file_id", fileId)
+                .put("endpoint", CHAT_COMPLETIONS_ENDPOINT)
+                .put("completion_window", COMPLETION_WINDOW);
+        HttpRequest request = newRequest("/batches")
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                .build();
+        return send(request).get("id").asText();
+    }
+
+    @Override
+    public Status status(String batchId) throws IOException {
+        String status = send(newRequest("/batches/" + batchId).GET().build()).path("status").asText();
+        return switch (status) {
+            case "completed" -> Status.COMPLETED;
+            case "failed", "expired", "cancelled", "cancelling" -> Status.FAILED;
+            default -> Status.IN_PROGRESS;
+        };
+    }
+
+    @Override
+    public Map<String, String> results(String batchId) throws IOException {
+        JsonNode batch = send(newRequest("/batches/" + batchId).GET().build());
+        String outputFileId = batch.path("output_file_id").asText(null);
+        if (outputFileId == null) {
+            throw new IOException("Batch " + batchId + " has no output file");
+        }
+
+        String content = sendForString(newRequest("/files/" + outputFileId + "/content").GET().build());
+        Map<String, String> results = new HashMap<>();
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode result = mapper.readTree(line);
+            JsonNode response = result.path("response");
+            if (response.path("status_code").asInt() != 200) {
+                // Failed prompts are missing from the result and reported by the caller
+                continue;
+            }
+            JsonNode message = response.path("body").path("choices").path(0).path("message");
+            results.put(result.path("custom_id").asText(), message.path("content").asText());
+        }
+        return results;
+    }
+
+    private String toJsonl(List<BatchRequest> requests, BatchModel model) throws IOException {
+        StringBuilder jsonl = new StringBuilder();
+        for (BatchRequest request : requests) {
+            ObjectNode line = mapper.createObjectNode()
+                    .put("custom_id", request.customId())
+                    .put("method", "POST")
+                    .put("url", CHAT_COMPLETIONS_ENDPOINT);
+            ObjectNode body = line.putObject("body")
+                    .put("model", model.name())
+                    .put("temperature", model.temperature());
+            body.putArray("messages").addObject()
+                    .put("role", "user")
+                    .put("content", request.prompt());
+            jsonl.append(mapper.writeValueAsString(line)).append('\n');
+        }
+        return jsonl.toString();
+    }
+
+    private String uploadInputFile(String jsonl) throws IOException {
+        String boundary = "----batch-" + UUID.randomUUID();
+        ByteArrayOutputStream multipart = new ByteArrayOutputStream();
+        multipart.writeBytes(("--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"purpose\"\r\n\r\n"
+                + "batch\r\n"
+                + "--" + boundary + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"batch.jsonl\"\r\n"
+                + "Content-Type: application/jsonl\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        multipart.writeBytes(jsonl.getBytes(StandardCharsets.UTF_8));
+        multipart.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+
+        HttpRequest request = newRequest("/files")
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(multipart.toByteArray()))
+                .build();
+        return send(request).get("id").asText();
+    }
+
+    private HttpRequest.Builder newRequest(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Authorization", "Bearer " + apiKey);
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException {
+        return mapper.readTree(sendForString(request));
+    }
+
+    private String sendForString(HttpRequest request) throws IOException {
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("Batch API request " + request.method() + " " + request.uri().getPath()
+                        + " failed with status " + response.statusCode() + ": " + response.body());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Batch API request interrupted", e);
+        }
+    }
+}
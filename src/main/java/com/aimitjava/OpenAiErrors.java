@@ -0,0 +1,103 @@
+package com.aimitjava;
+
+import dev.ai4j.openai4j.OpenAiHttpException;
+import dev.langchain4j.exception.HttpException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+final class OpenAiErrors {
+    private static final int REQUEST_TIMEOUT = 408;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int FIRST_SERVER_ERROR = 500;
+    // OpenAI reports the wait time in the error text, e.g. "Please try again in 1.5s"
+    private static final Pattern RETRY_AFTER = Pattern.compile(
+            "(?i)(?:try again in|retry after)\\s*([0-9]+(?:\\.[0-9]+)?)\\s*(ms|s|sec|seconds?)?");
+
+    private OpenAiErrors() {
+        // prevent instantiation
+    }
+
+    /**
+     * Finds the HTTP status code of a failed request anywhere in the cause chain.
+     *
+     * @param error The error thrown by the chat model
+     * @return The HTTP status code, or empty if the error was not caused by an HTTP response
+     */
+    static OptionalInt statusCode(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof OpenAiHttpException httpError) {
+                return OptionalInt.of(httpError.code());
+            }
+            if (current instanceof HttpException httpError) {
+                return OptionalInt.of(httpError.statusCode());
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return OptionalInt.empty();
+    }
+
+    static boolean isRateLimited(Throwable error) {
+        OptionalInt status = statusCode(error);
+        return status.isPresent() && status.getAsInt() == TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * Decides whether a failed request may succeed when sent again: rate limits, timeouts,
+     * server errors and network failures are transient, client errors such as an invalid
+     * API key are not.
+     *
+     * @param error The error thrown by the chat model
+     * @return True if the request is worth retrying
+     */
+    static boolean isTransient(Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            return false;
+        }
+
+        OptionalInt status = statusCode(error);
+        if (status.isPresent()) {
+            int code = status.getAsInt();
+            return code == REQUEST_TIMEOUT || code == TOO_MANY_REQUESTS || code >= FIRST_SERVER_ERROR;
+        }
+
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current instanceof IOException) {
+                return true;
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the wait time the API asked for before the next attempt.
+     *
+     * @param error The error thrown by the chat model
+     * @return The requested wait time, or empty if the API did not specify one
+     */
+    static Optional<Duration> retryAfter(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            if (current.getMessage() != null) {
+                Matcher matcher = RETRY_AFTER.matcher(current.getMessage());
+                if (matcher.find()) {
+                    double amount = Double.parseDouble(matcher.group(1));
+                    boolean millis = "ms".equalsIgnoreCase(matcher.group(2));
+                    return Optional.of(Duration.ofMillis((long) Math.ceil(millis ? amount : amount * 1000)));
+                }
+            }
+            if (current.getCause() == current) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+}
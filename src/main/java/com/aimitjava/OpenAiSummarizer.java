@@ -3,14 +3,46 @@ package com.aimitjava;
 import dev.langchain4j.data.document.Document;
 import dev.langchain4j.data.document.DocumentSplitter;
 import dev.langchain4j.data.document.splitter.DocumentSplitters;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.data.segment.TextSegment;
+import dev.langchain4j.model.Tokenizer;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
 import dev.langchain4j.model.openai.OpenAiChatModel;
+import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.model.output.TokenUsage;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public class OpenAiSummarizer implements Summarizer {
 
+    private static final String CHUNK_CACHE_DIRECTORY = "chunks";
+    // Rough size of a chunk summary, counted against the token budget along with the prompt
+    private static final int ESTIMATED_COMPLETION_TOKENS = 300;
+    private static final String DEFAULT_TOKENIZER_MODEL = "gpt-3.5-turbo";
+    // Room left in the context window for the model's answer to a chunk prompt
+    private static final int RESPONSE_HEADROOM_TOKENS = 1000;
     private static final String EMPTY_TEXT_SUMMARY = "No content to summarize.";
     private static final String PROMPT_TEMPLATE = """
         Please provide a concise summary of the following text in maximum 5 sentences.
@@ -28,56 +60,586 @@ public class OpenAiSummarizer implements Summarizer {
         %s
         """;
 
-    private final ChatLanguageModel model;
+    // Chunk prompts go to the map tier, combine prompts to the reduce tier
+    private final Tier mapTier;
+    private final Tier reduceTier;
+    // Optional; used for the final combine request when its output is streamed
+    private final StreamingChatLanguageModel streamingModel;
     private final DocumentSplitter splitter;
+    private final Tokenizer tokenizer;
+    private final int chunkMaxTokens;
+    private final int chunkOverlapTokens;
+    private final int reduceMaxTokens;
+    private final SummaryCache chunkCache;
+    private final RetryPolicy retryPolicy;
+    private final Metrics metrics = Metrics.getInstance();
 
     public OpenAiSummarizer() {
         this(Configuration.getInstance());
     }
 
     OpenAiSummarizer(Configuration config) {
-        this.model = OpenAiChatModel.builder()
-                .apiKey(config.getOpenAiApiKey())
-                .modelName(config.getOpenAiModelName())
-                .temperature(config.getOpenAiTemperature())
-                .build();
+        this(chatModel(config, ModelTier.MAP),
+                hasTierSettings(config) ? chatModel(config, ModelTier.REDUCE) : null,
+                streamingChatModel(config, ModelTier.REDUCE),
+                config);
+    }
+
+    private static ChatLanguageModel chatModel(Configuration config, ModelTier tier) {
+        OpenAiChatModel.OpenAiChatModelBuilder builder = OpenAiChatModel.builder()
+                .baseUrl(config.getOpenAiBaseUrl(tier).orElse(config.getOpenAiBaseUrl()))
+                .apiKey(config.getOpenAiApiKey(tier).orElse(config.getOpenAiApiKey()))
+                .modelName(config.getOpenAiModelName(tier).orElse(config.getOpenAiModelName()))
+                .temperature(config.getOpenAiTemperature(tier).orElse(config.getOpenAiTemperature()))
+                // Retries are handled per request by the retry policy
+                .maxRetries(1);
+        long timeoutSeconds = config.getOpenAiTimeoutSeconds(tier).orElse(config.getOpenAiTimeoutSeconds());
+        return (timeoutSeconds > 0 ? builder.timeout(Duration.ofSeconds(timeoutSeconds)) : builder).build();
+    }
 
-        // Configure document splitter with max tokens allowing for prompt space
-        this.splitter = DocumentSplitters.recursive(8000, 500);
+    private static StreamingChatLanguageModel streamingChatModel(Configuration config, ModelTier tier) {
+        OpenAiStreamingChatModel.OpenAiStreamingChatModelBuilder builder = OpenAiStreamingChatModel.builder()
+                .baseUrl(config.getOpenAiBaseUrl(tier).orElse(config.getOpenAiBaseUrl()))
+                .apiKey(config.getOpenAiApiKey(tier).orElse(config.getOpenAiApiKey()))
+                .modelName(config.getOpenAiModelName(tier).orElse(config.getOpenAiModelName()))
+                .temperature(config.getOpenAiTemperature(tier).orElse(config.getOpenAiTemperature()));
+        long timeoutSeconds = config.getOpenAiTimeoutSeconds(tier).orElse(config.getOpenAiTimeoutSeconds());
+        return (timeoutSeconds > 0 ? builder.timeout(Duration.ofSeconds(timeoutSeconds)) : builder).build();
+    }
+
+    private static boolean hasTierSettings(Configuration config) {
+        for (ModelTier tier : ModelTier.values()) {
+            if (config.getOpenAiModelName(tier).isPresent() || config.getOpenAiTemperature(tier).isPresent()
+                    || config.getOpenAiTimeoutSeconds(tier).isPresent() || config.getOpenAiBaseUrl(tier).isPresent()
+                    || config.getOpenAiApiKey(tier).isPresent()) {
+                return true;
+            }
+        }
+        return false;
     }
 
     // Constructor for testing with mock model
     OpenAiSummarizer(ChatLanguageModel model) {
-        this.model = model;
-        this.splitter = DocumentSplitters.recursive(8000, 500);
+        this(model, Configuration.getInstance());
+    }
+
+    // Constructor for testing with mock model and configuration
+    OpenAiSummarizer(ChatLanguageModel model, Configuration config) {
+        this(model, null, config);
+    }
+
+    // Constructor for testing with mock models and configuration
+    OpenAiSummarizer(ChatLanguageModel model, StreamingChatLanguageModel streamingModel, Configuration config) {
+        this(model, null, streamingModel, config);
+    }
+
+    /**
+     * @param mapModel Summarizes the chunks
+     * @param reduceModel Combines the summaries, or null to use the map model
+     * @param streamingModel Streams the final combine request, or null to never stream
+     * @param config The tier settings and the settings shared by both tiers
+     */
+    OpenAiSummarizer(ChatLanguageModel mapModel, ChatLanguageModel reduceModel,
+                     StreamingChatLanguageModel streamingModel, Configuration config) {
+        this.mapTier = tier(mapModel, config, ModelTier.MAP, null);
+        // Both phases on the same model share its scheduler and circuit breaker
+        this.reduceTier = tier(reduceModel != null ? reduceModel : mapModel, config, ModelTier.REDUCE, mapTier);
+        this.streamingModel = streamingModel;
+        // Chunks are sized for the model that summarizes them
+        this.tokenizer = tokenizerFor(mapTier.modelName());
+
+        // Size chunks in model tokens, packed up to the context window minus prompt and answer
+        this.chunkMaxTokens = config.getOpenAiChunkMaxTokens() > 0
+                ? config.getOpenAiChunkMaxTokens()
+                : config.getOpenAiContextWindowTokens() - tokenizer.estimateTokenCountInText(PROMPT_TEMPLATE)
+                        - RESPONSE_HEADROOM_TOKENS;
+        this.chunkOverlapTokens = config.getOpenAiChunkOverlapTokens();
+        if (chunkMaxTokens <= chunkOverlapTokens) {
+            throw new IllegalArgumentException("Chunk size of " + chunkMaxTokens
+                    + " tokens must exceed the chunk overlap of " + chunkOverlapTokens + " tokens");
+        }
+        this.splitter = DocumentSplitters.recursive(chunkMaxTokens, chunkOverlapTokens, tokenizer);
+        this.reduceMaxTokens = config.getOpenAiReduceMaxTokens();
+        this.chunkCache = config.isCacheEnabled()
+                ? new SummaryCache(Path.of(config.getCacheDirectory(), CHUNK_CACHE_DIRECTORY),
+                        config.getCacheMaxSizeMb() * 1024L * 1024L * SummaryCache.CHUNK_SHARE_PERCENT / 100)
+                : null;
+        this.retryPolicy = new RetryPolicy(
+                config.getOpenAiRetryMaxAttempts(),
+                Duration.ofMillis(config.getOpenAiRetryInitialDelayMs()),
+                Duration.ofMillis(config.getOpenAiRetryMaxDelayMs()));
     }
 
     @Override
     public String summarize(String fullText) {
+        return summarize(fullText, SummaryProgress.NONE);
+    }
+
+    @Override
+    public String summarize(String fullText, SummaryProgress progress) {
         if (fullText == null || fullText.trim().isEmpty()) {
             return EMPTY_TEXT_SUMMARY;
         }
 
-        // Create document and split if necessary
-        Document document = Document.from(fullText);
-        List<TextSegment> chunks = splitter.split(document);
+        // Summarize all chunks concurrently, keeping the chunk order
+        metrics.increment(Metrics.CHARACTERS, fullText.length());
+        List<String> chunkSummaries = summarizeChunks(chunkPrompts(fullText), 0, progress);
+
+        return combine(chunkSummaries, progress);
+    }
+
+    /**
+     * Splits the text into chunks and builds the summary prompt of every chunk.
+     * Used directly by the batch mode, which sends the prompts itself.
+     *
+     * @param fullText The text to be summarized
+     * @return The chunk prompts in document order, or an empty list for blank text
+     */
+    List<String> chunkPrompts(String fullText) {
+        if (fullText == null || fullText.trim().isEmpty()) {
+            return List.of();
+        }
+
+        return split(fullText);
+    }
 
-        if (chunks.size() == 1) {
-            String prompt = String.format(PROMPT_TEMPLATE, chunks.getFirst().text());
-            return model.chat(prompt);
+    private List<String> split(String text) {
+        Metrics.Timer timer = metrics.startTimer("splitting");
+        try {
+            // Create document and split if necessary
+            List<TextSegment> chunks = splitter.split(Document.from(text));
+            metrics.increment(Metrics.CHUNKS, chunks.size());
+            return chunks.stream()
+                    .map(chunk -> String.format(PROMPT_TEMPLATE, chunk.text()))
+                    .toList();
+        } finally {
+            timer.stop();
         }
+    }
 
-        // Summarize each chunk
-        List<String> chunkSummaries = chunks.stream()
-                .map(chunk -> {
-                    String prompt = String.format(PROMPT_TEMPLATE, chunk.text());
-                    return model.chat(prompt);
-                })
+    /**
+     * Builds the prompts of one reduce level: the summaries are grouped within the reduce token
+     * budget and every group becomes one combine prompt. If a single prompt is returned, its
+     * response is the final summary.
+     *
+     * @param summaries The summaries of the previous level in document order
+     * @return The combine prompts in document order
+     */
+    List<String> combinePrompts(List<String> summaries) {
+        return groupByTokenBudget(summaries).stream()
+                .map(group -> String.format(FINAL_SUMMARY_TEMPLATE, String.join("\n\n", group)))
                 .toList();
+    }
+
+    /**
+     * Summarizes the text parts as they arrive. Chunks are summarized in windows of a few
+     * concurrent requests, so only the current window of text is held in memory.
+     */
+    @Override
+    public String summarizePages(Stream<String> textParts) {
+        return summarizePages(textParts, SummaryProgress.NONE);
+    }
+
+    @Override
+    public String summarizePages(Stream<String> textParts, SummaryProgress progress) {
+        int windowSize = 2 * mapTier.maxConcurrency();
+        List<String> chunkSummaries = new ArrayList<>();
+        List<String> window = new ArrayList<>();
+
+        Iterator<String> parts = textParts.iterator();
+        while (parts.hasNext()) {
+            String part = parts.next();
+            if (part.isBlank()) {
+                continue;
+            }
+
+            metrics.increment(Metrics.CHARACTERS, part.length());
+            window.addAll(split(part));
+            if (window.size() >= windowSize) {
+                chunkSummaries.addAll(summarizeChunks(window, chunkSummaries.size(), progress));
+                window.clear();
+            }
+        }
+        chunkSummaries.addAll(summarizeChunks(window, chunkSummaries.size(), progress));
+
+        if (chunkSummaries.isEmpty()) {
+            return EMPTY_TEXT_SUMMARY;
+        }
+        return combine(chunkSummaries, progress);
+    }
+
+    private String combine(List<String> chunkSummaries, SummaryProgress progress) {
+        if (chunkSummaries.size() == 1) {
+            return chunkSummaries.getFirst();
+        }
 
         // Create final summary from chunk summaries
-        String combinedSummaries = String.join("\n\n", chunkSummaries);
-        String finalPrompt = String.format(FINAL_SUMMARY_TEMPLATE, combinedSummaries);
-        return model.chat(finalPrompt);
+        return reduce(chunkSummaries, progress);
+    }
+
+    @Override
+    public String fingerprint() {
+        List<String> parts = new ArrayList<>(List.of(
+                getClass().getName(),
+                String.valueOf(mapTier.modelName()),
+                String.valueOf(mapTier.temperature()),
+                String.valueOf(reduceMaxTokens),
+                String.valueOf(chunkMaxTokens),
+                String.valueOf(chunkOverlapTokens),
+                PROMPT_TEMPLATE,
+                FINAL_SUMMARY_TEMPLATE));
+        // Without tier settings the fingerprint stays the same, so earlier cached summaries remain valid
+        if (!Objects.equals(reduceTier.modelName(), mapTier.modelName())
+                || reduceTier.temperature() != mapTier.temperature()) {
+            parts.add(String.valueOf(reduceTier.modelName()));
+            parts.add(String.valueOf(reduceTier.temperature()));
+        }
+        return String.join("\n", parts);
+    }
+
+    /**
+     * Summarizes the chunk prompts, reusing summaries recorded for this document by an interrupted
+     * run and remembered summaries of chunks whose text has not changed since an earlier run. Only
+     * the remaining prompts are sent to the model, and each new summary is reported as it arrives.
+     *
+     * @param prompts The chunk prompts in document order
+     * @param firstIndex The index of the first prompt within the document
+     * @param progress Receives and provides chunk summaries of the document
+     * @return The chunk summaries in document order
+     */
+    private List<String> summarizeChunks(List<String> prompts, int firstIndex, SummaryProgress progress) {
+        List<String> summaries = new ArrayList<>(prompts.size());
+        List<Integer> missingIndexes = new ArrayList<>();
+        List<String> missingPrompts = new ArrayList<>();
+        for (int i = 0; i < prompts.size(); i++) {
+            Optional<String> known = progress.completedChunk(firstIndex + i, prompts.get(i));
+            if (known.isEmpty()) {
+                known = cachedChunkSummary(prompts.get(i));
+            }
+            summaries.add(known.orElse(null));
+            if (known.isEmpty()) {
+                missingIndexes.add(i);
+                missingPrompts.add(prompts.get(i));
+            }
+        }
+
+        List<String> freshSummaries = chatAll(mapTier, missingPrompts, (i, summary) -> {
+            int index = missingIndexes.get(i);
+            progress.chunkCompleted(firstIndex + index, prompts.get(index), summary);
+            rememberChunkSummary(prompts.get(index), summary);
+        });
+        for (int i = 0; i < freshSummaries.size(); i++) {
+            summaries.set(missingIndexes.get(i), freshSummaries.get(i));
+        }
+        return summaries;
+    }
+
+    /**
+     * @param prompt A chunk prompt
+     * @return The summary remembered for the same chunk by an earlier run, if the chunk cache is enabled
+     */
+    Optional<String> cachedChunkSummary(String prompt) {
+        if (chunkCache == null) {
+            return Optional.empty();
+        }
+        Optional<String> known = chunkCache.get(chunkCacheKey(prompt));
+        metrics.increment(known.isPresent() ? Metrics.CACHE_HITS : Metrics.CACHE_MISSES, "cache", "chunk", 1);
+        return known;
+    }
+
+    /**
+     * Keeps a chunk summary for later runs, if the chunk cache is enabled.
+     */
+    void rememberChunkSummary(String prompt, String summary) {
+        if (chunkCache != null) {
+            chunkCache.put(chunkCacheKey(prompt), summary);
+        }
+    }
+
+    /**
+     * Chunk summaries only depend on the map tier and the prompt, so they survive changes to the
+     * reduce settings.
+     */
+    private String chunkCacheKey(String prompt) {
+        return Hashing.sha256(String.join("\n",
+                getClass().getName(),
+                String.valueOf(mapTier.modelName()),
+                String.valueOf(mapTier.temperature()),
+                prompt));
+    }
+
+    @Override
+    public void clearCache() {
+        if (chunkCache != null) {
+            chunkCache.clear();
+        }
+    }
+
+    /**
+     * @param modelName The configured model, or null
+     * @return The tokenizer that measures text in tokens of the model
+     */
+    static Tokenizer tokenizerFor(String modelName) {
+        if (modelName != null) {
+            try {
+                Tokenizer tokenizer = new OpenAiTokenizer(modelName);
+                // The encoding is looked up on first use
+                tokenizer.estimateTokenCountInText(modelName);
+                return tokenizer;
+            } catch (IllegalArgumentException e) {
+                // Models of other OpenAI compatible backends are unknown to the tokenizer; an estimate will do
+            }
+        }
+        return new OpenAiTokenizer(DEFAULT_TOKENIZER_MODEL);
+    }
+
+    /**
+     * Combines summaries level by level until a single summary remains. Each level groups
+     * the summaries into prompts that stay within the reduce token budget and sends the
+     * groups concurrently, so no combine prompt outgrows the model context.
+     *
+     * @param summaries The chunk summaries in document order
+     * @param progress Receives the final summary as it is generated, if it wants it streamed
+     * @return The final summary
+     */
+    private String reduce(List<String> summaries, SummaryProgress progress) {
+        Metrics.Timer timer = metrics.startTimer("reduce");
+        try {
+            List<String> level = summaries;
+            while (true) {
+                List<String> prompts = combinePrompts(level);
+                if (prompts.size() == 1) {
+                    return streamingModel != null && progress.streamsFinalSummary()
+                            ? streamChat(prompts.getFirst(), progress::finalSummaryPartial)
+                            : chat(reduceTier, prompts.getFirst());
+                }
+                level = chatAll(reduceTier, prompts);
+            }
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private List<List<String>> groupByTokenBudget(List<String> summaries) {
+        List<List<String>> groups = new ArrayList<>();
+        List<String> current = new ArrayList<>();
+        int currentTokens = 0;
+
+        for (String summary : summaries) {
+            int tokens = tokenizer.estimateTokenCountInText(summary);
+            // Every group takes at least two summaries, so each level is guaranteed to shrink
+            if (current.size() >= 2 && currentTokens + tokens > reduceMaxTokens) {
+                groups.add(current);
+                current = new ArrayList<>();
+                currentTokens = 0;
+            }
+            current.add(summary);
+            currentTokens += tokens;
+        }
+
+        if (current.size() == 1 && !groups.isEmpty()) {
+            groups.getLast().add(current.getFirst());
+        } else {
+            groups.add(current);
+        }
+        return groups;
+    }
+
+    private List<String> chatAll(Tier tier, List<String> prompts) {
+        return chatAll(tier, prompts, (index, response) -> { });
+    }
+
+    /**
+     * Sends all prompts concurrently; the scheduler of the tier decides how many are in flight at once.
+     *
+     * @param tier The tier whose model answers the prompts
+     * @param prompts The prompts to send
+     * @param onResponse Called with the prompt index and response as soon as a response arrives
+     * @return The responses in the order of the prompts
+     */
+    private List<String> chatAll(Tier tier, List<String> prompts, BiConsumer<Integer, String> onResponse) {
+        // Only start as many tasks as the tier may have in flight, so long documents do not park
+        // hundreds of threads in the scheduler
+        Semaphore tasks = new Semaphore(tier.maxConcurrency());
+        AtomicBoolean failed = new AtomicBoolean();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>(prompts.size());
+            List<String> responses = new ArrayList<>(prompts.size());
+            try {
+                for (int i = 0; i < prompts.size() && !failed.get(); i++) {
+                    int index = i;
+                    tasks.acquire();
+                    futures.add(executor.submit(() -> {
+                        try {
+                            String response = chat(tier, prompts.get(index));
+                            onResponse.accept(index, response);
+                            return response;
+                        } catch (RuntimeException e) {
+                            failed.set(true);
+                            throw e;
+                        } finally {
+                            tasks.release();
+                        }
+                    }));
+                }
+
+                for (Future<String> future : futures) {
+                    responses.add(future.get());
+                }
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException("Chunk summarization failed", e.getCause());
+            } catch (InterruptedException e) {
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Chunk summarization interrupted", e);
+            }
+            return responses;
+        }
+    }
+
+    private String chat(Tier tier, String prompt) {
+        int promptTokens = tokenizer.estimateTokenCountInText(prompt);
+        int estimatedTokens = promptTokens + ESTIMATED_COMPLETION_TOKENS;
+        // Retrying single requests means a flaky chunk never forces the whole document to be redone
+        return retryPolicy.execute(() -> tier.circuitBreaker().execute(
+                () -> tier.scheduler().execute(estimatedTokens, () -> timedChat(tier.model(), prompt, promptTokens))));
+    }
+
+    /**
+     * Sends the prompt to the streaming model and passes the answer on as it arrives. A failed
+     * request is only retried as long as nothing has been passed on, so no text is duplicated.
+     *
+     * @param prompt The prompt to send
+     * @param onPartialResponse Receives the answer piece by piece
+     * @return The complete answer
+     */
+    private String streamChat(String prompt, Consumer<String> onPartialResponse) {
+        int promptTokens = tokenizer.estimateTokenCountInText(prompt);
+        int estimatedTokens = promptTokens + ESTIMATED_COMPLETION_TOKENS;
+        AtomicBoolean started = new AtomicBoolean();
+        Tier tier = reduceTier;
+        return retryPolicy.execute(() -> tier.circuitBreaker().execute(() -> tier.scheduler().execute(estimatedTokens, () -> {
+            try {
+                return timedStreamChat(prompt, promptTokens, text -> {
+                    started.set(true);
+                    onPartialResponse.accept(text);
+                });
+            } catch (RuntimeException e) {
+                if (started.get()) {
+                    // Not chained as cause, so the retry policy does not classify it as transient
+                    IllegalStateException brokenOff = new IllegalStateException(
+                            "Streaming response broke off: " + e.getMessage());
+                    brokenOff.addSuppressed(e);
+                    throw brokenOff;
+                }
+                throw e;
+            }
+        })));
+    }
+
+    private String timedStreamChat(String prompt, int promptTokens, Consumer<String> onPartialResponse) {
+        Metrics.Timer timer = metrics.startTimer("chat");
+        try {
+            CompletableFuture<ChatResponse> response = new CompletableFuture<>();
+            streamingModel.chat(prompt, new StreamingChatResponseHandler() {
+                @Override
+                public void onPartialResponse(String partialResponse) {
+                    onPartialResponse.accept(partialResponse);
+                }
+
+                @Override
+                public void onCompleteResponse(ChatResponse completeResponse) {
+                    response.complete(completeResponse);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    response.completeExceptionally(error);
+                }
+            });
+
+            ChatResponse completeResponse = response.join();
+            String text = completeResponse.aiMessage().text();
+            recordTokens(completeResponse.tokenUsage(), promptTokens, text);
+            return text;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Streaming request failed", e.getCause());
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private String timedChat(ChatLanguageModel model, String prompt, int promptTokens) {
+        Metrics.Timer timer = metrics.startTimer("chat");
+        try {
+            ChatResponse response = model.chat(ChatRequest.builder().messages(UserMessage.from(prompt)).build());
+            String text = response.aiMessage().text();
+            recordTokens(response.tokenUsage(), promptTokens, text);
+            return text;
+        } finally {
+            timer.stop();
+        }
+    }
+
+    /**
+     * Counts the tokens the API reports, falling back to estimates for backends that report none.
+     */
+    private void recordTokens(TokenUsage usage, int estimatedPromptTokens, String completion) {
+        metrics.increment(Metrics.PROMPT_TOKENS, usage != null && usage.inputTokenCount() != null
+                ? usage.inputTokenCount()
+                : estimatedPromptTokens);
+        metrics.increment(Metrics.COMPLETION_TOKENS, usage != null && usage.outputTokenCount() != null
+                ? usage.outputTokenCount()
+                : tokenizer.estimateTokenCountInText(completion));
+    }
+
+    /**
+     * The model of one phase with the admission control in front of it. Schedulers and circuit
+     * breakers are shared by all documents, so concurrency and rate limits hold for the whole run.
+     */
+    private record Tier(ChatLanguageModel model, String modelName, double temperature, int maxConcurrency,
+                        String rateLimitScope, RequestScheduler scheduler, CircuitBreaker circuitBreaker) {
+    }
+
+    /**
+     * @param shareWith A tier whose scheduler and circuit breaker are reused if it sends to the
+     *                  same model, or null
+     */
+    private static Tier tier(ChatLanguageModel model, Configuration config, ModelTier tier, Tier shareWith) {
+        String modelName = config.getOpenAiModelName(tier).orElse(config.getOpenAiModelName());
+        int maxConcurrency = config.getOpenAiMaxConcurrentRequests(tier).orElse(config.getOpenAiMaxConcurrentRequests());
+        // OpenAI limits requests and tokens per model and account
+        String rateLimitScope = Hashing.sha256(config.getOpenAiBaseUrl(tier).orElse(config.getOpenAiBaseUrl()) + "\n"
+                + config.getOpenAiApiKey(tier).orElse(config.getOpenAiApiKey()) + "\n" + modelName);
+        boolean shared = shareWith != null && shareWith.model() == model;
+        Duration latencyTarget = Duration.ofMillis(config.getOpenAiLatencyTargetMs());
+        RequestScheduler scheduler;
+        if (shared && shareWith.maxConcurrency() == maxConcurrency) {
+            scheduler = shareWith.scheduler();
+        } else if (shareWith != null && shareWith.rateLimitScope().equals(rateLimitScope)) {
+            // Only the concurrency differs, the rate limits of the model hold for both tiers together
+            scheduler = new RequestScheduler(shareWith.scheduler(), maxConcurrency, latencyTarget);
+        } else {
+            scheduler = new RequestScheduler(
+                    config.getOpenAiRateLimitRequestsPerMinute(),
+                    config.getOpenAiRateLimitTokensPerMinute(),
+                    maxConcurrency,
+                    latencyTarget);
+        }
+        CircuitBreaker circuitBreaker = shared
+                ? shareWith.circuitBreaker()
+                : new CircuitBreaker(
+                        config.getOpenAiCircuitFailureThreshold(),
+                        Duration.ofSeconds(config.getOpenAiCircuitOpenSeconds()));
+        return new Tier(model, modelName,
+                config.getOpenAiTemperature(tier).orElse(config.getOpenAiTemperature()),
+                maxConcurrency, rateLimitScope, scheduler, circuitBreaker);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,169 @@
+package com.aimitjava;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Watches a directory and its subdirectories for created or modified PDFs. A PDF is handed to the
+ * callback only after its size and modification time have stayed the same for the debounce
+ * interval, so files that are still being copied into the directory are not picked up half-written.
+ */
+class PdfDirectoryWatcher implements AutoCloseable {
+    private static final long POLL_INTERVAL_MS = 200;
+
+    private final Path directory;
+    private final Duration debounce;
+    private final Predicate<Path> isPdf;
+    private final Consumer<File> onPdfReady;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private final Map<Path, PendingFile> pendingFiles = new HashMap<>();
+
+    PdfDirectoryWatcher(Path directory, Duration debounce, Consumer<File> onPdfReady) throws IOException {
+        this(directory, debounce, path -> isPdf(path.getFileName()), onPdfReady);
+    }
+
+    /**
+     * @param isPdf Selects the files to report, e.g. by the include and exclude globs
+     */
+    PdfDirectoryWatcher(Path directory, Duration debounce, Predicate<Path> isPdf, Consumer<File> onPdfReady)
+            throws IOException {
+        this.directory = directory;
+        this.debounce = debounce;
+        this.isPdf = isPdf;
+        this.onPdfReady = onPdfReady;
+        this.watchService = directory.getFileSystem().newWatchService();
+        registerTree(directory);
+    }
+
+    private void registerTree(Path root) throws IOException {
+        try (Stream<Path> directories = Files.walk(root).filter(Files::isDirectory)) {
+            for (Path subdirectory : (Iterable<Path>) directories::iterator) {
+                WatchKey key = subdirectory.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, subdirectory);
+            }
+        }
+    }
+
+    /**
+     * Processes file system events until the watcher is closed or the thread is interrupted.
+     */
+    void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    handleEvents(key);
+                }
+                releaseSettledFiles();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Watcher was closed
+        }
+    }
+
+    private void handleEvents(WatchKey key) {
+        Path watchedDirectory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || watchedDirectory == null) {
+                // Events were lost, so every PDF in the directory has to be checked again
+                markAllPdfsPending(directory);
+            } else if (event.context() instanceof Path name) {
+                Path path = watchedDirectory.resolve(name);
+                if (Files.isDirectory(path)) {
+                    // Files copied in along with a new directory raise no events of their own
+                    watchNewDirectory(path);
+                } else if (isPdf.test(path)) {
+                    markPending(path);
+                }
+            }
+        }
+        if (!key.reset()) {
+            watchedDirectories.remove(key);
+        }
+    }
+
+    private void watchNewDirectory(Path newDirectory) {
+        try {
+            registerTree(newDirectory);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not watch " + newDirectory + ": " + e.getMessage());
+        }
+        markAllPdfsPending(newDirectory);
+    }
+
+    private void markAllPdfsPending(Path root) {
+        try (Stream<Path> files = Files.walk(root)) {
+            files.filter(Files::isRegularFile).filter(isPdf).forEach(this::markPending);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not list " + root + ": " + e.getMessage());
+        }
+    }
+
+    private void markPending(Path pdf) {
+        pendingFiles.put(pdf, PendingFile.of(pdf, System.nanoTime()));
+    }
+
+    private void releaseSettledFiles() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<Path, PendingFile>> iterator = pendingFiles.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Path, PendingFile> entry = iterator.next();
+            Path pdf = entry.getKey();
+            PendingFile pending = entry.getValue();
+            if (now - pending.lastChangeNanos() < debounce.toNanos()) {
+                continue;
+            }
+
+            if (!Files.isRegularFile(pdf)) {
+                iterator.remove();
+                continue;
+            }
+
+            PendingFile current = PendingFile.of(pdf, now);
+            if (current.size() != pending.size() || current.lastModified() != pending.lastModified()) {
+                // Still being written, wait for another quiet interval
+                entry.setValue(current);
+                continue;
+            }
+
+            iterator.remove();
+            onPdfReady.accept(pdf.toFile());
+        }
+    }
+
+    private static boolean isPdf(Path name) {
+        return name.toString().toLowerCase().endsWith(".pdf");
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private record PendingFile(long size, long lastModified, long lastChangeNanos) {
+        static PendingFile of(Path pdf, long nanos) {
+            File file = pdf.toFile();
+            return new PendingFile(file.length(), file.lastModified(), nanos);
+        }
+    }
+}
@@ -1,32 +1,165 @@
 package com.aimitjava;
 
+import dev.langchain4j.data.document.BlankDocumentException;
 import dev.langchain4j.data.document.Document;
-import dev.langchain4j.data.document.DocumentParser;
-import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class PdfDocumentHandler {
-    private final DocumentParser parser;
+    private final PdfTextCleaner cleaner;
+    private final MemoryUsageSetting memoryUsage;
 
     public PdfDocumentHandler() {
-        this.parser = new ApachePdfBoxDocumentParser();
+        this(null);
+    }
+
+    /**
+     * @param cleaner Removes running headers, footers and other layout noise from the extracted
+     * text, or null to return the text as PDFBox extracts it
+     */
+    public PdfDocumentHandler(PdfTextCleaner cleaner) {
+        this(cleaner, MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    /**
+     * @param cleaner Removes running headers, footers and other layout noise from the extracted
+     * text, or null to return the text as PDFBox extracts it
+     * @param memoryUsage Where PDFBox buffers the decoded streams of an open document; with a
+     * heap budget, larger documents spill into a scratch file instead of growing the heap
+     */
+    public PdfDocumentHandler(PdfTextCleaner cleaner, MemoryUsageSetting memoryUsage) {
+        this.cleaner = cleaner;
+        this.memoryUsage = memoryUsage;
+    }
+
+    /**
+     * @param maxHeapBytes The heap each open document may use for buffers, or 0 for no limit
+     * @param scratchDirectory Where buffers beyond the budget are written, or null for the
+     * system temporary directory
+     * @return The memory setting for {@link #PdfDocumentHandler(PdfTextCleaner, MemoryUsageSetting)}
+     */
+    public static MemoryUsageSetting memoryUsage(long maxHeapBytes, File scratchDirectory) {
+        if (maxHeapBytes <= 0) {
+            return MemoryUsageSetting.setupMainMemoryOnly();
+        }
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(maxHeapBytes);
+        return scratchDirectory != null ? setting.setTempDir(scratchDirectory) : setting;
+    }
+
+    /**
+     * Parses the PDF once. Callers that need several of text, pages and metadata should use
+     * this instead of the single-purpose methods, which each parse the file again.
+     *
+     * @param pdfFile The PDF file to read
+     * @return The extraction result; it keeps the PDF open and must be closed after use
+     * @throws IOException If the PDF cannot be opened
+     */
+    public PdfExtraction extract(File pdfFile) throws IOException {
+        return new PdfExtraction(load(pdfFile));
     }
 
     public Document parseDocument(File pdfFile) throws IOException {
-        try (FileInputStream fis = new FileInputStream(pdfFile)) {
-            return parser.parse(fis);
+        try (PdfExtraction extraction = extract(pdfFile)) {
+            return extraction.toDocument();
         }
     }
 
     public String extractText(File pdfFile) throws IOException {
-        Document document = parseDocument(pdfFile);
-        return document.text();
+        if (cleaner == null) {
+            Document document = parseDocument(pdfFile);
+            return document.text();
+        }
+
+        // Headers and footers are told apart from content by comparing the pages
+        try (PdfExtraction extraction = extract(pdfFile)) {
+            String text = cleaner.clean(extraction.getPages());
+            if (text.isBlank()) {
+                throw new BlankDocumentException();
+            }
+            return text;
+        }
+    }
+
+    /**
+     * Extracts the text lazily, one range of pages at a time, so only the current range is
+     * held in memory. The returned stream keeps the PDF open and must be closed after use.
+     * Headers and footers are detected within each range, so ranges should span several pages.
+     *
+     * @param pdfFile The PDF file to read
+     * @param pagesPerBatch The number of pages extracted per stream element
+     * @return A sequential stream with the text of consecutive page ranges; consuming it throws
+     * {@link PdfExtractionException} if a page range cannot be extracted
+     * @throws IOException If the PDF cannot be opened
+     */
+    public Stream<String> streamText(File pdfFile, int pagesPerBatch) throws IOException {
+        if (pagesPerBatch < 1) {
+            throw new IllegalArgumentException("Pages per batch must be at least 1");
+        }
+
+        PDDocument document = load(pdfFile);
+        try {
+            int pageCount = document.getNumberOfPages();
+            int batchCount = (pageCount + pagesPerBatch - 1) / pagesPerBatch;
+            PDFTextStripper stripper = new PDFTextStripper();
+
+            return IntStream.range(0, batchCount)
+                    .mapToObj(batch -> extractPages(document, stripper,
+                            batch * pagesPerBatch + 1,
+                            Math.min(pageCount, (batch + 1) * pagesPerBatch)))
+                    .onClose(() -> close(document));
+        } catch (IOException | RuntimeException e) {
+            document.close();
+            throw e;
+        }
     }
 
     public String getMetadata(File pdfFile) throws IOException {
-        Document document = parseDocument(pdfFile);
-        return document.metadata().toString();
+        try (PdfExtraction extraction = extract(pdfFile)) {
+            return extraction.getMetadata().toString();
+        }
+    }
+
+    private PDDocument load(File pdfFile) throws IOException {
+        // The file itself is read through a buffered random access file, never as a whole
+        PDDocument document = PDDocument.load(pdfFile, memoryUsage);
+        Metrics.getInstance().increment(Metrics.PAGES, document.getNumberOfPages());
+        return document;
+    }
+
+    private String extractPages(PDDocument document, PDFTextStripper stripper, int firstPage, int lastPage) {
+        try {
+            if (cleaner == null) {
+                stripper.setStartPage(firstPage);
+                stripper.setEndPage(lastPage);
+                return stripper.getText(document);
+            }
+
+            List<String> pages = new ArrayList<>(lastPage - firstPage + 1);
+            for (int page = firstPage; page <= lastPage; page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                pages.add(stripper.getText(document));
+            }
+            return cleaner.clean(pages);
+        } catch (IOException e) {
+            throw new PdfExtractionException("Failed to extract pages " + firstPage + "-" + lastPage, e);
+        }
+    }
+
+    private static void close(PDDocument document) {
+        try {
+            document.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
\ No newline at end of file
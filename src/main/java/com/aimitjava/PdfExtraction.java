@@ -0,0 +1,113 @@
+package com.aimitjava;
+
+import dev.langchain4j.data.document.BlankDocumentException;
+import dev.langchain4j.data.document.Document;
+import dev.langchain4j.data.document.Metadata;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.text.PDFTextStripper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of parsing a PDF once. Text, page offsets and metadata are computed on first
+ * access from the same parsed document, which stays open until this extraction is closed.
+ */
+public class PdfExtraction implements AutoCloseable {
+    private final PDDocument document;
+    private List<String> pages;
+    private String text;
+    private List<Integer> pageOffsets;
+    private Metadata metadata;
+
+    PdfExtraction(PDDocument document) {
+        this.document = document;
+    }
+
+    public int getPageCount() {
+        return document.getNumberOfPages();
+    }
+
+    /**
+     * @return The text of every page, in page order
+     * @throws IOException If the text of a page cannot be extracted
+     */
+    public synchronized List<String> getPages() throws IOException {
+        if (pages == null) {
+            PDFTextStripper stripper = new PDFTextStripper();
+            List<String> extracted = new ArrayList<>(getPageCount());
+            for (int page = 1; page <= getPageCount(); page++) {
+                stripper.setStartPage(page);
+                stripper.setEndPage(page);
+                extracted.add(stripper.getText(document));
+            }
+            pages = Collections.unmodifiableList(extracted);
+        }
+        return pages;
+    }
+
+    /**
+     * @return The text of the whole document
+     * @throws IOException If the text cannot be extracted
+     */
+    public synchronized String getText() throws IOException {
+        if (text == null) {
+            List<Integer> offsets = new ArrayList<>(getPageCount());
+            StringBuilder builder = new StringBuilder();
+            for (String page : getPages()) {
+                offsets.add(builder.length());
+                builder.append(page);
+            }
+            text = builder.toString();
+            pageOffsets = Collections.unmodifiableList(offsets);
+        }
+        return text;
+    }
+
+    /**
+     * @return The offset in {@link #getText()} at which each page starts, in page order
+     * @throws IOException If the text cannot be extracted
+     */
+    public synchronized List<Integer> getPageOffsets() throws IOException {
+        getText();
+        return pageOffsets;
+    }
+
+    /**
+     * @return The entries of the PDF document information dictionary
+     */
+    public synchronized Metadata getMetadata() {
+        if (metadata == null) {
+            metadata = new Metadata();
+            PDDocumentInformation information = document.getDocumentInformation();
+            for (String key : information.getMetadataKeys()) {
+                String value = information.getCustomMetadataValue(key);
+                if (value != null) {
+                    metadata.put(key, value);
+                }
+            }
+        }
+        return metadata;
+    }
+
+    /**
+     * @return The text and metadata as LangChain4j document
+     * @throws IOException If the text cannot be extracted
+     * @throws BlankDocumentException If the PDF contains no text
+     */
+    public Document toDocument() throws IOException {
+        String documentText = getText();
+        if (documentText.isBlank()) {
+            throw new BlankDocumentException();
+        }
+        return Document.from(documentText, getMetadata());
+    }
+
+    @Override
+    public void close() throws IOException {
+        document.close();
+    }
+}
@@ -0,0 +1,14 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * A PDF whose text could not be extracted. Raised while a lazily read PDF is consumed, so callers
+ * can tell a broken document from other I/O failures further down the stream.
+ */
+public class PdfExtractionException extends UncheckedIOException {
+    public PdfExtractionException(String message, IOException cause) {
+        super(message, cause);
+    }
+}
@@ -1,28 +1,98 @@
 package com.aimitjava;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.List;
+import java.util.stream.Stream;
 
 public class PdfFileFinder {
-    private static final long MAX_FILE_SIZE_BYTES = 5 * 1024 * 1024; // 5 MB in bytes
+    private static final int DEFAULT_MAX_FILE_SIZE_MB = 5;
     private static final String PDF_DIRECTORY = "./pdfs/";
 
+    private final Path rootDirectory;
+    private final int maxFileSizeMb;
+    private final PathMatcher includeMatcher;
+    private final PathMatcher excludeMatcher;
+
+    public PdfFileFinder() {
+        this(DEFAULT_MAX_FILE_SIZE_MB);
+    }
+
+    public PdfFileFinder(Configuration config) {
+        this(Path.of(config.getPdfDirectory()), config.getPdfMaxSizeMb(),
+                config.getPdfIncludeGlob(), config.getPdfExcludeGlob());
+    }
+
+    /**
+     * @param maxFileSizeMb The maximum accepted file size in MB, or 0 for no limit
+     */
+    PdfFileFinder(int maxFileSizeMb) {
+        this(Path.of(PDF_DIRECTORY), maxFileSizeMb, null, null);
+    }
+
+    /**
+     * @param rootDirectory The directory that is searched recursively
+     * @param maxFileSizeMb The maximum accepted file size in MB, or 0 for no limit
+     * @param includeGlob Glob relative to the root that files must match, or null for all PDFs
+     * @param excludeGlob Glob relative to the root of files to skip, or null to skip nothing
+     */
+    PdfFileFinder(Path rootDirectory, int maxFileSizeMb, String includeGlob, String excludeGlob) {
+        this.rootDirectory = rootDirectory;
+        this.maxFileSizeMb = maxFileSizeMb;
+        this.includeMatcher = includeGlob != null ? rootDirectory.getFileSystem().getPathMatcher("glob:" + includeGlob) : null;
+        this.excludeMatcher = excludeGlob != null ? rootDirectory.getFileSystem().getPathMatcher("glob:" + excludeGlob) : null;
+    }
+
     public List<File> getPdfFiles() {
-        File directory = new File(PDF_DIRECTORY);
-        List<File> pdfFiles = new ArrayList<>();
+        try (Stream<File> pdfFiles = streamPdfFiles()) {
+            return pdfFiles.toList();
+        }
+    }
 
-        if (!directory.exists() || !directory.isDirectory()) {
-            return pdfFiles;
+    /**
+     * Walks the PDF directory recursively and yields matching files while the walk is still
+     * in progress. The attributes of every entry are read only once during the walk.
+     *
+     * @return A lazy stream of PDF files; it holds open directory handles and must be closed
+     * @throws UncheckedIOException If the directory cannot be walked
+     */
+    public Stream<File> streamPdfFiles() {
+        if (!Files.isDirectory(rootDirectory)) {
+            return Stream.empty();
         }
 
-        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".pdf"));
-        if (files != null) {
-            Collections.addAll(pdfFiles, files);
+        try {
+            return Files.find(rootDirectory, Integer.MAX_VALUE, this::matches)
+                    .map(Path::toFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to search " + rootDirectory, e);
         }
+    }
 
-        return pdfFiles;
+    private boolean matches(Path path, BasicFileAttributes attributes) {
+        return attributes.isRegularFile() && isSelected(path);
+    }
+
+    /**
+     * Applies the include and exclude globs, so files found by other means, such as watching
+     * the directory, are selected the same way as by the walk. The globs only narrow the
+     * selection; files without the .pdf extension are never selected.
+     *
+     * @param path A file below the PDF directory
+     * @return Whether the file is one of the PDFs to summarize
+     */
+    public boolean isSelected(Path path) {
+        Path relativePath = rootDirectory.relativize(path);
+        if (excludeMatcher != null && excludeMatcher.matches(relativePath)) {
+            return false;
+        }
+        boolean isPdf = path.getFileName().toString().toLowerCase().endsWith(".pdf");
+        return isPdf && (includeMatcher == null || includeMatcher.matches(relativePath));
     }
 
     public void validateFileSize(File pdf) {
@@ -30,13 +100,14 @@ public class PdfFileFinder {
             throw new IllegalArgumentException("File does not exist: " + pdf.getPath());
         }
 
-        if (pdf.length() > MAX_FILE_SIZE_BYTES) {
+        if (maxFileSizeMb > 0 && pdf.length() > maxFileSizeMb * 1024L * 1024L) {
             throw new PdfTooLargeException(
-                    String.format("PDF file exceeds maximum size of 5 MB: %s (%.2f MB)",
+                    String.format("PDF file exceeds maximum size of %d MB: %s (%.2f MB)",
+                            maxFileSizeMb,
                             pdf.getName(),
                             pdf.length() / (1024.0 * 1024.0)
                     )
             );
         }
     }
-}
\ No newline at end of file
+}
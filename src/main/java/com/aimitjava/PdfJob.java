@@ -0,0 +1,111 @@
+package com.aimitjava;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Carries a single PDF and its intermediate results through the processing steps.
+ */
+class PdfJob {
+    private final File pdf;
+    private String text;
+    private String summary;
+    private String cacheKey;
+    private boolean cached;
+    private Long simHash;
+    private String duplicateOf;
+    private boolean completed;
+    private boolean written;
+    private CompletableFuture<Path> pendingWrite;
+
+    PdfJob(File pdf) {
+        this.pdf = pdf;
+    }
+
+    File getPdf() {
+        return pdf;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    void setText(String text) {
+        this.text = text;
+    }
+
+    String getSummary() {
+        return summary;
+    }
+
+    void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    String getCacheKey() {
+        return cacheKey;
+    }
+
+    void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    boolean isCached() {
+        return cached;
+    }
+
+    void setCachedSummary(String summary) {
+        this.summary = summary;
+        this.cached = true;
+    }
+
+    Long getSimHash() {
+        return simHash;
+    }
+
+    void setSimHash(Long simHash) {
+        this.simHash = simHash;
+    }
+
+    String getDuplicateOf() {
+        return duplicateOf;
+    }
+
+    void setDuplicateSummary(String summary, String duplicateOf) {
+        setCachedSummary(summary);
+        this.duplicateOf = duplicateOf;
+    }
+
+    /**
+     * Drops the text and summary once nothing reads them anymore, so finished jobs stay small.
+     */
+    void releaseContent() {
+        this.text = null;
+        this.summary = null;
+    }
+
+    boolean isCompleted() {
+        return completed;
+    }
+
+    void markCompleted() {
+        this.completed = true;
+    }
+
+    boolean isWritten() {
+        return written;
+    }
+
+    void markWritten() {
+        this.written = true;
+    }
+
+    CompletableFuture<Path> getPendingWrite() {
+        return pendingWrite;
+    }
+
+    void setPendingWrite(CompletableFuture<Path> pendingWrite) {
+        this.pendingWrite = pendingWrite;
+    }
+}
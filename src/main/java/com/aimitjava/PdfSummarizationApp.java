@@ -2,60 +2,330 @@ package com.aimitjava;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 public class PdfSummarizationApp {
     private static final String ERROR_PREFIX = "❌ Error: ";
+    // Exit code of a run that finished, but with more failed PDFs than tolerated
+    private static final int FAILURE_THRESHOLD_EXIT_CODE = 2;
 
     private final PdfFileFinder fileFinder;
     private final PdfDocumentHandler documentHandler;
     private final Summarizer summarizer;
     private final MarkdownWriter writer;
+    private final Configuration config;
+    private final SummaryCache summaryCache;
+    // Opened per run, batch or watch and closed when it ends
+    private CheckpointJournal journal;
+    private final NearDuplicateIndex duplicates;
+    private final ExtractiveCompressor compressor;
+    // Started per run, batch or watch and closed when it ends
+    private GroupCommitWriter asyncWriter;
+    // Summaries handed to the async writer that are still in flight or failed to write
+    private final Queue<PdfJob> pendingWrites = new ConcurrentLinkedQueue<>();
+    private final Metrics metrics = Metrics.getInstance();
 
     public PdfSummarizationApp() {
-        this.fileFinder = new PdfFileFinder();
-        this.documentHandler = new PdfDocumentHandler();
-        this.summarizer = new OpenAiSummarizer();
-        this.writer = new MarkdownWriter();
+        this(new PdfFileFinder(Configuration.getInstance()), documentHandler(Configuration.getInstance()),
+                new OpenAiSummarizer(), new MarkdownWriter(), Configuration.getInstance());
+    }
+
+    private static PdfDocumentHandler documentHandler(Configuration config) {
+        String scratchDirectory = config.getPdfMemoryScratchDirectory();
+        return new PdfDocumentHandler(config.isPdfCleaningEnabled() ? new PdfTextCleaner() : null,
+                PdfDocumentHandler.memoryUsage(config.getPdfMemoryMaxHeapMb() * 1024L * 1024L,
+                        scratchDirectory != null ? new File(scratchDirectory) : null));
     }
 
     // Constructor for testing with mocked dependencies
     PdfSummarizationApp(PdfFileFinder fileFinder, PdfDocumentHandler documentHandler,
                         Summarizer summarizer, MarkdownWriter writer) {
+        this(fileFinder, documentHandler, summarizer, writer, Configuration.getInstance());
+    }
+
+    // Constructor for testing with mocked dependencies and configuration
+    PdfSummarizationApp(PdfFileFinder fileFinder, PdfDocumentHandler documentHandler,
+                        Summarizer summarizer, MarkdownWriter writer, Configuration config) {
         this.fileFinder = fileFinder;
         this.documentHandler = documentHandler;
         this.summarizer = summarizer;
         this.writer = writer;
+        this.config = config;
+        this.summaryCache = config.isCacheEnabled()
+                ? new SummaryCache(Path.of(config.getCacheDirectory()),
+                        config.getCacheMaxSizeMb() * 1024L * 1024L * (100 - SummaryCache.CHUNK_SHARE_PERCENT) / 100)
+                : null;
+        this.duplicates = config.isDeduplicationEnabled()
+                ? openDuplicateIndex(Path.of(config.getDeduplicationIndexFile()), config.getDeduplicationSimilarity())
+                : null;
+        this.compressor = config.getCompressionMaxTokens() > 0
+                ? new ExtractiveCompressor(config.getCompressionMaxTokens(),
+                        OpenAiSummarizer.tokenizerFor(
+                                config.getOpenAiModelName(ModelTier.MAP).orElse(config.getOpenAiModelName())))
+                : null;
+    }
+
+    /**
+     * Opens the checkpoint journal if checkpoints are enabled, loading the progress of an earlier
+     * run. Closing it releases the journal file.
+     */
+    private CheckpointJournal openCheckpointJournal() {
+        journal = config.isCheckpointEnabled()
+                ? openJournal(Path.of(config.getCheckpointFile()))
+                : null;
+        return journal;
+    }
+
+    /**
+     * Starts the async writer if it is enabled. Closing it commits the files still queued and
+     * stops its thread.
+     */
+    private GroupCommitWriter openAsyncWriter() {
+        asyncWriter = config.isOutputAsyncEnabled()
+                ? new GroupCommitWriter(config.getOutputAsyncQueueCapacity(), config.getOutputAsyncGroupSize(),
+                        Duration.ofMillis(config.getOutputAsyncGroupDelayMs()))
+                : null;
+        return asyncWriter;
+    }
+
+    private static CheckpointJournal openJournal(Path file) {
+        try {
+            return new CheckpointJournal(file);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read checkpoint journal " + file + ", progress will not be resumed: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    private static NearDuplicateIndex openDuplicateIndex(Path file, double similarity) {
+        try {
+            return new NearDuplicateIndex(file, similarity);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read near-duplicate index " + file
+                    + ", near-duplicates will not be detected: " + e.getMessage());
+            return null;
+        }
     }
 
     private static void logError(String message) {
         System.err.println(ERROR_PREFIX + message);
     }
 
+    /**
+     * Removes all cached summaries, so every PDF is summarized again on the next run.
+     */
+    public void clearCache() {
+        if (summaryCache != null) {
+            summaryCache.clear();
+        }
+        summarizer.clearCache();
+    }
+
     public void run() {
-        try {
+        // The writer closes first, its last confirmed files are still recorded in the journal
+        try (CheckpointJournal ignoredJournal = openCheckpointJournal();
+             GroupCommitWriter ignoredWriter = openAsyncWriter()) {
             runInternal();
+        } catch (ApplicationTerminationException e) {
+            logError(e.getMessage());
+            throw e;
         } catch (Exception e) {
             logError(e.getMessage());
             throw new ApplicationTerminationException(e.getMessage(), 1);
+        } finally {
+            exportMetrics();
         }
     }
 
-    private void runInternal() {
+    /**
+     * Summarizes all PDFs through the OpenAI Batch API. Responses take up to a day but cost less,
+     * which suits large backlogs where latency does not matter.
+     */
+    public void runBatch() {
+        if (!(summarizer instanceof OpenAiSummarizer openAiSummarizer)) {
+            throw new IllegalStateException("Batch mode requires the OpenAI summarizer");
+        }
+        runBatch(new BatchSummarizer(openAiSummarizer, new OpenAiBatchTransport(config),
+                Duration.ofSeconds(config.getOpenAiBatchPollIntervalSeconds())));
+    }
+
+    void runBatch(BatchSummarizer batchSummarizer) {
+        try (CheckpointJournal ignoredJournal = openCheckpointJournal();
+             GroupCommitWriter ignoredWriter = openAsyncWriter()) {
+            runBatchInternal(batchSummarizer);
+        } catch (Exception e) {
+            logError(e.getMessage());
+            throw new ApplicationTerminationException(e.getMessage(), 1);
+        } finally {
+            exportMetrics();
+        }
+    }
+
+    private void runBatchInternal(BatchSummarizer batchSummarizer) {
         try {
-            // Validate environment
             EnvValidator.validateApiKey();
 
-            // Find PDF files
-            List<File> pdfFiles = fileFinder.getPdfFiles();
-            if (pdfFiles.isEmpty()) {
-                System.out.println("No PDFs found in ./pdfs/");
+            List<PdfJob> jobs = discoverPdfFiles().stream().map(PdfJob::new).toList();
+            if (jobs.isEmpty()) {
+                System.out.println("No PDFs found in " + config.getPdfDirectory());
                 return;
             }
 
-            // Process each PDF
-            for (File pdf : pdfFiles) {
-                processPdf(pdf);
+            // Extract everything first, the batch needs the prompts of all documents
+            List<PdfJob> pending = new ArrayList<>();
+            for (PdfJob job : jobs) {
+                extract(job);
+                if (!job.isCached() && !job.isCompleted()) {
+                    if (job.getText() == null) {
+                        job.setText(extractTextOf(job.getPdf()));
+                    }
+                    pending.add(job);
+                }
+            }
+
+            // Chunks of an interrupted run are not submitted again
+            Map<PdfJob, String> failed = batchSummarizer.summarize(pending,
+                    job -> journal != null ? journal.progress(job.getCacheKey()) : SummaryProgress.NONE);
+
+            // Results that came back are kept even if other documents of the batch failed
+            for (PdfJob job : jobs) {
+                if (failed.containsKey(job)) {
+                    continue;
+                }
+                if (!job.isCached() && !job.isCompleted()) {
+                    remember(job);
+                }
+                write(job);
+            }
+            awaitWrites(null);
+
+            for (Map.Entry<PdfJob, String> failure : failed.entrySet()) {
+                PdfJob job = failure.getKey();
+                System.err.println("⚠️ " + failure.getValue() + ", summarizing " + job.getPdf().getName()
+                        + " directly");
+                summarize(job);
+                write(job);
+            }
+            awaitWrites(null);
+            completeRun();
+        } catch (MissingApiKeyException e) {
+            throw new ApplicationTerminationException(e.getMessage(), 1);
+        } catch (PdfTooLargeException e) {
+            throw new ApplicationTerminationException(e.getMessage() + " Processing aborted.", 1);
+        } catch (IOException e) {
+            throw new ApplicationTerminationException("Batch processing failed: " + e.getMessage(), 1);
+        }
+    }
+
+    private String extractTextOf(File pdf) {
+        try {
+            return documentHandler.extractText(pdf);
+        } catch (IOException e) {
+            throw processingFailure(pdf, e);
+        }
+    }
+
+    /**
+     * Keeps running and summarizes every PDF that is created or modified in the configured
+     * PDF directory or its subdirectories, selected by the same globs as a regular run. Summarizer, clients and caches stay warm between files, and a failing
+     * file is reported without stopping the watcher. Metrics are served on {@code metrics.port}
+     * if it is set.
+     */
+    public void watch() {
+        try {
+            EnvValidator.validateApiKey();
+
+            Path directory = Path.of(config.getPdfDirectory());
+            Files.createDirectories(directory);
+            System.out.println("👀 Watching " + directory + " for new or changed PDFs...");
+
+            try (CheckpointJournal ignoredJournal = openCheckpointJournal();
+                 GroupCommitWriter ignoredWriter = openAsyncWriter();
+                 MetricsEndpoint endpoint = config.getMetricsPort() > 0
+                         ? new MetricsEndpoint(config.getMetricsBindAddress(), config.getMetricsPort(), metrics)
+                         : null;
+                 ExecutorService workers = Executors.newFixedThreadPool(
+                         config.getSummarizationParallelism(), Thread.ofVirtual().factory());
+                 PdfDirectoryWatcher watcher = new PdfDirectoryWatcher(directory,
+                         Duration.ofMillis(config.getWatchDebounceMs()),
+                         fileFinder::isSelected,
+                         pdf -> workers.execute(() -> processWatchedPdf(pdf)))) {
+                watcher.run();
+            }
+        } catch (MissingApiKeyException e) {
+            logError(e.getMessage());
+            throw new ApplicationTerminationException(e.getMessage(), 1);
+        } catch (IOException e) {
+            String errorMsg = "Failed to watch " + config.getPdfDirectory() + ": " + e.getMessage();
+            logError(errorMsg);
+            throw new ApplicationTerminationException(errorMsg, 1);
+        }
+    }
+
+    private void processWatchedPdf(File pdf) {
+        PdfJob job = new PdfJob(pdf);
+        try {
+            extract(job);
+            summarize(job);
+            write(job);
+            // Other workers wait for their own files
+            if (job.getPendingWrite() != null) {
+                pendingWrites.remove(job);
+                awaitWrite(job, null);
+            }
+        } catch (ApplicationTerminationException e) {
+            // Already reported, keep watching
+        } catch (RuntimeException e) {
+            logError("Failed to process " + pdf.getName() + ": " + e.getMessage());
+        } finally {
+            if (journal != null) {
+                // A watch never completes its run, so finished files are dropped one by one
+                journal.compact();
+            }
+            exportMetrics();
+        }
+    }
+
+    private void runInternal() {
+        try {
+            // Validate environment
+            EnvValidator.validateApiKey();
+
+            // Failing PDFs are quarantined instead of aborting the run if continue on error is enabled
+            FailureReport failures = config.isContinueOnErrorEnabled()
+                    ? new FailureReport(Path.of(config.getPdfDirectory()), quarantineDirectory())
+                    : null;
+
+            // Find and process PDF files
+            int processed = config.isPipelineEnabled()
+                    ? processConcurrently(failures)
+                    : processSequentially(failures);
+            if (processed == 0) {
+                System.out.println("No PDFs found in " + config.getPdfDirectory());
+            }
+            awaitWrites(failures);
+            if (failures != null) {
+                reportFailures(failures, processed);
+            }
+            if (failures == null || failures.getFailureCount() == 0) {
+                completeRun();
             }
         } catch (MissingApiKeyException e) {
             throw new ApplicationTerminationException(e.getMessage(), 1);
@@ -65,32 +335,425 @@ public class PdfSummarizationApp {
     }
 
     private void processPdf(File pdf) {
+        PdfJob job = new PdfJob(pdf);
+        extract(job);
+        summarize(job);
+        write(job);
+    }
+
+    private int processSequentially(FailureReport failures) {
+        List<File> pdfFiles = discoverPdfFiles();
+        for (File pdf : pdfFiles) {
+            if (failures == null) {
+                processPdf(pdf);
+            } else {
+                processIsolated(new PdfJob(pdf), failures);
+            }
+        }
+        return pdfFiles.size();
+    }
+
+    private void processIsolated(PdfJob job, FailureReport failures) {
+        String stage = "extract";
+        try {
+            extract(job);
+            stage = "summarize";
+            summarize(job);
+            stage = "write";
+            write(job);
+        } catch (RuntimeException e) {
+            recordFailure(failures, job, stage, e);
+        }
+    }
+
+    private void recordFailure(FailureReport failures, PdfJob job, String stage, RuntimeException error) {
+        if (error instanceof MissingApiKeyException) {
+            throw error;
+        }
+        FailureReport.Failure failure = failures.record(job.getPdf(), stage, error);
+        if (!(error instanceof ApplicationTerminationException)) {
+            // Processing failures have already been logged
+            logError("Failed to process " + job.getPdf().getName() + ": " + error.getMessage());
+        }
+        if (failure.quarantinedTo() != null) {
+            System.err.println("⚠️ Moved " + job.getPdf().getName() + " to " + failure.quarantinedTo());
+        }
+    }
+
+    private Path quarantineDirectory() {
+        String directory = config.getQuarantineDirectory();
+        return directory != null && !directory.isBlank() ? Path.of(directory) : null;
+    }
+
+    private void reportFailures(FailureReport failures, int processed) {
+        int failed = failures.getFailureCount();
+        int maxFailures = config.getMaxFailures();
+        String reportFile = config.getFailureReportFile();
+        try {
+            failures.write(Path.of(reportFile), processed, maxFailures);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write failure report " + reportFile + ": " + e.getMessage());
+        }
+
+        if (failed > 0) {
+            System.out.println("⚠️ " + failed + " of " + processed + " PDFs failed, see " + reportFile);
+        }
+        if (failed > maxFailures) {
+            throw new ApplicationTerminationException(failed + " PDFs failed, more than the "
+                    + maxFailures + " tolerated", FAILURE_THRESHOLD_EXIT_CODE);
+        }
+    }
+
+    private int processConcurrently(FailureReport failures) {
+        AtomicInteger discovered = new AtomicInteger();
+        // Discovery feeds the pipeline while the directory walk is still running
+        try (Stream<File> pdfFiles = fileFinder.streamPdfFiles()) {
+            Iterator<File> files = pdfFiles.iterator();
+            Iterator<PdfJob> jobs = new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    // The directory walk advances lazily, so discovery time is spent in here
+                    Metrics.Timer timer = metrics.startTimer("discovery");
+                    try {
+                        return files.hasNext();
+                    } finally {
+                        timer.stop();
+                    }
+                }
+
+                @Override
+                public PdfJob next() {
+                    discovered.incrementAndGet();
+                    return new PdfJob(files.next());
+                }
+            };
+
+            StagedPipeline<PdfJob> pipeline = new StagedPipeline<PdfJob>(config.getPipelineQueueCapacity())
+                    .stage("extract", config.getExtractionParallelism(), false, this::extract)
+                    .stage("summarize", config.getSummarizationParallelism(), true, this::summarize)
+                    .stage("write", config.getWriterParallelism(), true, this::write);
+            if (failures != null) {
+                pipeline.continueOnError((job, stage, error) -> recordFailure(failures, job, stage, error));
+            }
+            pipeline.run(jobs);
+        }
+        return discovered.get();
+    }
+
+    private List<File> discoverPdfFiles() {
+        Metrics.Timer timer = metrics.startTimer("discovery");
+        try {
+            return fileFinder.getPdfFiles();
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void extract(PdfJob job) {
         // Validate file size
-        fileFinder.validateFileSize(pdf);
+        fileFinder.validateFileSize(job.getPdf());
+
+        Metrics.Timer timer = metrics.startTimer("extraction");
+        try {
+            if (summaryCache != null || journal != null) {
+                job.setCacheKey(documentCacheKey(job.getPdf()));
+            }
+            if (journal != null && journal.isCompleted(job.getCacheKey(), job.getPdf())) {
+                // Written by an earlier run that was interrupted later on
+                job.markCompleted();
+                return;
+            }
+            if (summaryCache != null) {
+                // Unchanged PDFs are written straight from the cache without parsing
+                Optional<String> cached = summaryCache.get(job.getCacheKey());
+                metrics.increment(cached.isPresent() ? Metrics.CACHE_HITS : Metrics.CACHE_MISSES,
+                        "cache", "document", 1);
+                if (cached.isPresent()) {
+                    job.setCachedSummary(cached.get());
+                    return;
+                }
+            }
+
+            // In streaming mode the text is read page range by page range while summarizing
+            if (!config.isPdfStreamingEnabled()) {
+                job.setText(documentHandler.extractText(job.getPdf()));
+                if (duplicates != null) {
+                    findNearDuplicate(job);
+                }
+                if (compressor != null && !job.isCached()) {
+                    job.setText(compress(job.getText()));
+                }
+            }
+        } catch (IOException e) {
+            throw processingFailure(job.getPdf(), e);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private String compress(String text) {
+        Metrics.Timer timer = metrics.startTimer("compression");
+        try {
+            return compressor.compress(text);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    private void findNearDuplicate(PdfJob job) {
+        Optional<Long> simHash = NearDuplicateIndex.fingerprint(job.getText());
+        if (simHash.isEmpty()) {
+            return;
+        }
+        job.setSimHash(simHash.get());
+
+        Optional<NearDuplicateIndex.Match> match = duplicates.find(simHash.get(), summarySettings());
+        metrics.increment(match.isPresent() ? Metrics.CACHE_HITS : Metrics.CACHE_MISSES, "cache", "near-duplicate", 1);
+        match.ifPresent(duplicate -> job.setDuplicateSummary(duplicate.summary(), duplicate.file()));
+    }
+
+    private void summarize(PdfJob job) {
+        if (job.isCached() || job.isCompleted()) {
+            return;
+        }
+
+        Metrics.Timer timer = metrics.startTimer("summarize");
+        try {
+            // Chunk summaries of an interrupted run are picked up from the journal
+            SummaryProgress progress = journal != null ? journal.progress(job.getCacheKey()) : null;
+            if (config.isOutputStreamingEnabled()) {
+                summarizeIntoFile(job, progress != null ? progress : SummaryProgress.NONE);
+            } else {
+                job.setSummary(summarize(job, progress));
+            }
+        } finally {
+            timer.stop();
+        }
+        remember(job);
+    }
+
+    /**
+     * Keeps a fresh summary for unchanged and nearly identical PDFs of later runs.
+     */
+    private void remember(PdfJob job) {
+        if (summaryCache != null) {
+            summaryCache.put(job.getCacheKey(), job.getSummary());
+        }
+        if (duplicates != null && job.getSimHash() != null) {
+            duplicates.add(job.getSimHash(), summarySettings(), job.getPdf().getName(), job.getSummary());
+        }
+    }
+
+    private String summarize(PdfJob job, SummaryProgress progress) {
+        if (config.isPdfStreamingEnabled()) {
+            return summarizeStreaming(job.getPdf(), progress);
+        }
+        return progress != null
+                ? summarizer.summarize(job.getText(), progress)
+                : summarizer.summarize(job.getText());
+    }
+
+    /**
+     * Writes the summary while it is generated: the final combine step is appended to a partial
+     * Markdown file token by token, and the file takes its final name once the summary is complete.
+     */
+    private void summarizeIntoFile(PdfJob job, SummaryProgress chunkProgress) {
+        try (MarkdownWriter.SummaryStream stream = writer.openSummary(job.getPdf())) {
+            String summary = summarize(job, new SummaryProgress() {
+                @Override
+                public Optional<String> completedChunk(int index, String prompt) {
+                    return chunkProgress.completedChunk(index, prompt);
+                }
+
+                @Override
+                public void chunkCompleted(int index, String prompt, String summary) {
+                    chunkProgress.chunkCompleted(index, prompt, summary);
+                }
+
+                @Override
+                public boolean streamsFinalSummary() {
+                    return true;
+                }
+
+                @Override
+                public void finalSummaryPartial(String text) {
+                    stream.append(text);
+                }
+            });
+            // Short documents need no combine step, so nothing has been streamed yet
+            if (!stream.hasSummaryText()) {
+                stream.append(summary);
+            }
+            stream.commit();
+            job.setSummary(summary);
+            job.markWritten();
+        } catch (IOException e) {
+            throw processingFailure(job.getPdf(), e);
+        } catch (UncheckedIOException e) {
+            throw processingFailure(job.getPdf(), e.getCause());
+        }
+    }
+
+    private String summarizeStreaming(File pdf, SummaryProgress progress) {
+        try (Stream<String> pages = documentHandler.streamText(pdf, config.getPdfStreamingPagesPerBatch())) {
+            return progress != null
+                    ? summarizer.summarizePages(pages, progress)
+                    : summarizer.summarizePages(pages);
+        } catch (IOException e) {
+            // The PDF could not be opened, which fails the extract stage in non-streaming mode
+            throw extractionFailure(pdf, new PdfExtractionException(e.getMessage(), e));
+        } catch (PdfExtractionException e) {
+            throw extractionFailure(pdf, e);
+        } catch (UncheckedIOException e) {
+            throw processingFailure(pdf, e.getCause());
+        }
+    }
+
+    private String documentCacheKey(File pdf) throws IOException {
+        return Hashing.sha256(Hashing.sha256(pdf) + "\n" + summarySettings());
+    }
+
+    /**
+     * @return Everything besides the PDF that determines its summary
+     */
+    private String summarySettings() {
+        String settings = compressor != null
+                ? summarizer.fingerprint() + "\ncompression=" + compressor.getMaxTokens()
+                : summarizer.fingerprint();
+        return config.isPdfCleaningEnabled() ? settings + "\ncleaning=true" : settings;
+    }
+
+    private void write(PdfJob job) {
+        if (job.isCompleted()) {
+            System.out.println("⏭️ Summary for " + job.getPdf().getName() + " already created, skipped");
+            return;
+        }
+
+        Metrics.Timer timer = metrics.startTimer("write");
+        if (asyncWriter != null && !job.isWritten()) {
+            // The writer thread does the file system work, the PDF is done once the file is on disk.
+            // Confirmed writes leave the queue right away, only failures wait for the end of the run
+            pendingWrites.add(job);
+            try {
+                job.setPendingWrite(asyncWriter.submit(writer.summaryPath(job.getPdf()),
+                                writer.render(job.getSummary(), job.getPdf()))
+                        .whenComplete((path, error) -> {
+                            timer.stop();
+                            if (error == null) {
+                                summaryWritten(job);
+                                pendingWrites.remove(job);
+                            }
+                        }));
+            } catch (RuntimeException e) {
+                pendingWrites.remove(job);
+                throw e;
+            }
+            // The writer holds the rendered file now
+            job.releaseContent();
+            return;
+        }
 
         try {
-            // Extract text
-            String text = documentHandler.extractText(pdf);
+            if (!job.isWritten()) {
+                writer.writeSummary(job.getSummary(), job.getPdf());
+            }
+            summaryWritten(job);
+        } catch (IOException e) {
+            throw processingFailure(job.getPdf(), e);
+        } finally {
+            timer.stop();
+        }
+    }
 
-            // Generate summary
-            String summary = summarizer.summarize(text);
+    private void summaryWritten(PdfJob job) {
+        metrics.increment(Metrics.DOCUMENTS);
+        if (journal != null) {
+            journal.markCompleted(job.getCacheKey(), job.getPdf());
+        }
 
-            // Write markdown file
-            writer.writeSummary(summary, pdf);
+        // Print success message
+        System.out.println("✅ Summary for " + job.getPdf().getName() + " created"
+                + (job.getDuplicateOf() != null ? " from near-duplicate " + job.getDuplicateOf() + "!"
+                        : job.isCached() ? " from cache!" : "!"));
+    }
 
-            // Print success message
-            System.out.println("✅ Summary for " + pdf.getName() + " created!");
+    /**
+     * Waits until the async writer has confirmed every summary handed to it.
+     *
+     * @param failures Receives failed writes, or null to abort on the first one
+     */
+    private void awaitWrites(FailureReport failures) {
+        PdfJob job;
+        while ((job = pendingWrites.poll()) != null) {
+            awaitWrite(job, failures);
+        }
+    }
 
+    private void awaitWrite(PdfJob job, FailureReport failures) {
+        try {
+            job.getPendingWrite().join();
+        } catch (CompletionException e) {
+            IOException cause = e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            ApplicationTerminationException error = processingFailure(job.getPdf(), cause);
+            if (failures == null) {
+                throw error;
+            }
+            recordFailure(failures, job, "write", error);
+        }
+    }
+
+    /**
+     * Drops the checkpoints once every PDF of a run has been written; they only exist to resume
+     * an interrupted run.
+     */
+    private void completeRun() {
+        if (journal != null) {
+            journal.clear();
+        }
+    }
+
+    private void exportMetrics() {
+        String metricsFile = config.getMetricsFile();
+        if (metricsFile == null || metricsFile.isBlank()) {
+            return;
+        }
+        try {
+            metrics.writeTo(Path.of(metricsFile));
         } catch (IOException e) {
-            String errorMsg = "Failed to process " + pdf.getName() + ": " + e.getMessage();
-            logError(errorMsg);
-            throw new ApplicationTerminationException(errorMsg, 1);
+            System.err.println("Warning: Could not write metrics to " + metricsFile + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Like {@link #processingFailure}, but keeps the extraction error as the cause, so the PDF
+     * counts as broken even though the failure surfaced while summarizing.
+     */
+    private static ApplicationTerminationException extractionFailure(File pdf, PdfExtractionException e) {
+        String errorMsg = "Failed to process " + pdf.getName() + ": " + e.getMessage();
+        logError(errorMsg);
+        return new ApplicationTerminationException(errorMsg, 1, e);
+    }
+
+    private static ApplicationTerminationException processingFailure(File pdf, IOException e) {
+        String errorMsg = "Failed to process " + pdf.getName() + ": " + e.getMessage();
+        logError(errorMsg);
+        return new ApplicationTerminationException(errorMsg, 1, e);
+    }
+
     public static void main(String[] args) {
         try {
-            new PdfSummarizationApp().run();
+            PdfSummarizationApp app = new PdfSummarizationApp();
+            List<String> arguments = Arrays.asList(args);
+            if (arguments.contains("--clear-cache")) {
+                app.clearCache();
+            }
+            if (arguments.contains("--watch")) {
+                app.watch();
+            } else if (arguments.contains("--batch")) {
+                app.runBatch();
+            } else {
+                app.run();
+            }
         } catch (ApplicationTerminationException e) {
             System.exit(e.getExitCode());
         } catch (Exception e) {
@@ -0,0 +1,130 @@
+package com.aimitjava;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Removes layout noise from extracted PDF text before it is split. Running headers and footers
+ * are found by comparing the first and last lines of every page: a line that recurs on many pages,
+ * ignoring digits so page numbers and dates do not matter, is dropped. Bare page numbers are
+ * dropped as well, words hyphenated across line breaks are joined again, and whitespace is
+ * normalized.
+ */
+public class PdfTextCleaner {
+    // Headers and footers are searched among this many lines at the top and bottom of each page
+    private static final int EDGE_LINES = 3;
+    private static final int MIN_REPEATED_PAGES = 3;
+    private static final double MIN_REPEATED_SHARE = 0.2;
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\\R");
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)[-–—\\s]*(page|seite|p\\.)?\\s*\\d+\\s*((of|/|von)\\s*\\d+)?[-–—\\s]*");
+    private static final Pattern HYPHENATED_LINE_BREAK = Pattern.compile("(\\p{L})[-\u00AD][ \\t]*\\n[ \\t]*(\\p{Ll})");
+    private static final Pattern SOFT_HYPHEN = Pattern.compile("\u00AD");
+    private static final Pattern HORIZONTAL_SPACE = Pattern.compile("[ \\t\u00A0\u2007\u202F]+");
+    private static final Pattern TRAILING_SPACE = Pattern.compile("(?m) +$");
+    private static final Pattern LEADING_SPACE = Pattern.compile("(?m)^ +");
+    private static final Pattern BLANK_LINES = Pattern.compile("\\n{3,}");
+
+    /**
+     * @param pages The text of consecutive pages, in page order
+     * @return The cleaned text of all pages
+     */
+    public String clean(List<String> pages) {
+        List<List<String>> lines = new ArrayList<>(pages.size());
+        for (String page : pages) {
+            lines.add(List.of(LINE_BREAK.split(page, -1)));
+        }
+        Set<String> repeated = findRepeatedEdgeLines(lines);
+
+        StringBuilder text = new StringBuilder();
+        for (List<String> page : lines) {
+            boolean[] edge = edgeLines(page);
+            boolean hasBody = hasBody(page);
+            for (int i = 0; i < page.size(); i++) {
+                String line = page.get(i);
+                boolean noise = PAGE_NUMBER.matcher(line).matches()
+                        || (hasBody && repeated.contains(normalize(line)));
+                if (edge[i] && noise) {
+                    continue;
+                }
+                text.append(line).append('\n');
+            }
+        }
+        return normalizeWhitespace(joinHyphenatedWords(text.toString()));
+    }
+
+    private static Set<String> findRepeatedEdgeLines(List<List<String>> pages) {
+        int minPages = Math.max(MIN_REPEATED_PAGES, (int) Math.ceil(pages.size() * MIN_REPEATED_SHARE));
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (List<String> page : pages) {
+            if (!hasBody(page)) {
+                // On short pages such as slides every line is at an edge, content would repeat as well
+                continue;
+            }
+            boolean[] edge = edgeLines(page);
+            Set<String> seen = new HashSet<>();
+            for (int i = 0; i < page.size(); i++) {
+                if (edge[i]) {
+                    seen.add(normalize(page.get(i)));
+                }
+            }
+            seen.forEach(line -> pageCounts.merge(line, 1, Integer::sum));
+        }
+
+        Set<String> repeated = new HashSet<>();
+        pageCounts.forEach((line, count) -> {
+            if (count >= minPages) {
+                repeated.add(line);
+            }
+        });
+        return repeated;
+    }
+
+    /**
+     * @return Marks the first and last non-blank lines of the page, where headers and footers sit
+     */
+    private static boolean[] edgeLines(List<String> page) {
+        boolean[] edge = new boolean[page.size()];
+        for (int i = 0, found = 0; i < page.size() && found < EDGE_LINES; i++) {
+            if (!page.get(i).isBlank()) {
+                edge[i] = true;
+                found++;
+            }
+        }
+        for (int i = page.size() - 1, found = 0; i >= 0 && found < EDGE_LINES; i--) {
+            if (!page.get(i).isBlank()) {
+                edge[i] = true;
+                found++;
+            }
+        }
+        return edge;
+    }
+
+    private static boolean hasBody(List<String> page) {
+        return page.stream().filter(line -> !line.isBlank()).count() > 2L * EDGE_LINES;
+    }
+
+    private static String normalize(String line) {
+        return DIGITS.matcher(HORIZONTAL_SPACE.matcher(line.strip()).replaceAll(" "))
+                .replaceAll("#")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String joinHyphenatedWords(String text) {
+        return SOFT_HYPHEN.matcher(HYPHENATED_LINE_BREAK.matcher(text).replaceAll("$1$2")).replaceAll("");
+    }
+
+    private static String normalizeWhitespace(String text) {
+        String spaced = HORIZONTAL_SPACE.matcher(text).replaceAll(" ");
+        String trimmed = LEADING_SPACE.matcher(TRAILING_SPACE.matcher(spaced).replaceAll("")).replaceAll("");
+        return BLANK_LINES.matcher(trimmed).replaceAll("\n\n").strip();
+    }
+}
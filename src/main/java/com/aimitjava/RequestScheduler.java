@@ -0,0 +1,244 @@
+package com.aimitjava;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for chat requests, shared by all documents of a run.
+ * <p>
+ * Requests are admitted against token buckets for requests and tokens per minute, using the
+ * estimated prompt size. The number of concurrent requests adapts AIMD-style: it grows slowly
+ * while requests succeed within the latency target, shrinks a little when latency exceeds the
+ * target and is halved on rate-limit responses, which also pause admission for the requested
+ * retry interval. This keeps the request rate just under the limit instead of oscillating
+ * between idle and throttled.
+ * <p>
+ * Schedulers for callers that send to the same model may share one request and token budget
+ * while each keeps its own concurrency.
+ * <p>
+ * Waiting uses a {@link ReentrantLock} rather than a monitor, so virtual threads queued for a slot
+ * release their carrier thread instead of pinning it.
+ */
+class RequestScheduler {
+    private static final double BURST_SECONDS = 10;
+    private static final double LATENCY_BACKOFF_FACTOR = 0.9;
+    private static final Duration DEFAULT_RATE_LIMIT_PAUSE = Duration.ofSeconds(1);
+
+    private final Budget budget;
+    private final int maxConcurrency;
+    private final long latencyTargetNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotFreed = lock.newCondition();
+    private double concurrencyLimit;
+    private int inFlight;
+    // Slow responses to requests sent before the last backoff do not back off again
+    private long lastBackoffNanos;
+
+    /**
+     * @param requestsPerMinute The request budget per minute, or 0 for no limit
+     * @param tokensPerMinute The token budget per minute, or 0 for no limit
+     * @param maxConcurrency The upper bound for concurrent requests
+     * @param latencyTarget Latency above which concurrency is reduced, or zero to ignore latency
+     */
+    RequestScheduler(int requestsPerMinute, int tokensPerMinute, int maxConcurrency, Duration latencyTarget) {
+        this(new Budget(requestsPerMinute, tokensPerMinute), maxConcurrency, latencyTarget);
+    }
+
+    /**
+     * @param shareBudgetWith A scheduler for the same model, whose request and token budget and
+     *                        rate-limit pauses also apply to this one
+     * @param maxConcurrency The upper bound for concurrent requests of this scheduler
+     * @param latencyTarget Latency above which concurrency is reduced, or zero to ignore latency
+     */
+    RequestScheduler(RequestScheduler shareBudgetWith, int maxConcurrency, Duration latencyTarget) {
+        this(shareBudgetWith.budget, maxConcurrency, latencyTarget);
+    }
+
+    private RequestScheduler(Budget budget, int maxConcurrency, Duration latencyTarget) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("Maximum concurrency must be at least 1");
+        }
+        this.budget = budget;
+        this.maxConcurrency = maxConcurrency;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.concurrencyLimit = maxConcurrency;
+        this.lastBackoffNanos = System.nanoTime();
+    }
+
+    /**
+     * Waits for a free slot and enough budget, then sends the request.
+     *
+     * @param estimatedTokens The estimated number of tokens the request consumes
+     * @param request The request to send
+     * @return The response of the request
+     */
+    <T> T execute(int estimatedTokens, Supplier<T> request) {
+        acquireSlot();
+        try {
+            awaitBudget(estimatedTokens);
+
+            long start = System.nanoTime();
+            T response = request.get();
+            onSuccess(start, System.nanoTime());
+            return response;
+        } catch (RuntimeException e) {
+            if (OpenAiErrors.isRateLimited(e)) {
+                onRateLimited(OpenAiErrors.retryAfter(e));
+            }
+            throw e;
+        } finally {
+            releaseSlot();
+        }
+    }
+
+    int currentConcurrencyLimit() {
+        lock.lock();
+        try {
+            return (int) concurrencyLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void acquireSlot() {
+        lock.lock();
+        try {
+            while (inFlight >= (int) concurrencyLimit) {
+                slotFreed.await();
+            }
+            inFlight++;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a request slot", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            inFlight--;
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitBudget(int estimatedTokens) {
+        sleep(budget.reserve(estimatedTokens));
+    }
+
+    private void onSuccess(long startNanos, long endNanos) {
+        lock.lock();
+        try {
+            if (latencyTargetNanos > 0 && endNanos - startNanos > latencyTargetNanos) {
+                // Back off once per latency window: the requests in flight saw the same slowdown
+                if (startNanos - lastBackoffNanos >= 0) {
+                    concurrencyLimit = Math.max(1, concurrencyLimit * LATENCY_BACKOFF_FACTOR);
+                    lastBackoffNanos = endNanos;
+                }
+            } else {
+                concurrencyLimit = Math.min(maxConcurrency, concurrencyLimit + 1 / concurrencyLimit);
+            }
+            slotFreed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onRateLimited(Optional<Duration> retryAfter) {
+        lock.lock();
+        try {
+            concurrencyLimit = Math.max(1, concurrencyLimit / 2);
+        } finally {
+            lock.unlock();
+        }
+        budget.pause(retryAfter.orElse(DEFAULT_RATE_LIMIT_PAUSE).toNanos());
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for request budget", e);
+        }
+    }
+
+    /**
+     * The rate limits of one model. A rate-limit response pauses every scheduler drawing on it.
+     */
+    private static final class Budget {
+        private final TokenBucket requestBucket;
+        private final TokenBucket tokenBucket;
+        private long pausedUntilNanos;
+
+        Budget(int requestsPerMinute, int tokensPerMinute) {
+            this.requestBucket = requestsPerMinute > 0 ? new TokenBucket(requestsPerMinute) : null;
+            this.tokenBucket = tokensPerMinute > 0 ? new TokenBucket(tokensPerMinute) : null;
+            this.pausedUntilNanos = System.nanoTime();
+        }
+
+        /**
+         * @return How long the caller has to wait before sending its request
+         */
+        long reserve(int estimatedTokens) {
+            long waitNanos = pauseRemainingNanos();
+            if (requestBucket != null) {
+                waitNanos = Math.max(waitNanos, requestBucket.reserve(1));
+            }
+            if (tokenBucket != null) {
+                waitNanos = Math.max(waitNanos, tokenBucket.reserve(estimatedTokens));
+            }
+            return waitNanos;
+        }
+
+        synchronized long pauseRemainingNanos() {
+            return Math.max(0, pausedUntilNanos - System.nanoTime());
+        }
+
+        synchronized void pause(long pauseNanos) {
+            long until = System.nanoTime() + pauseNanos;
+            if (until - pausedUntilNanos > 0) {
+                pausedUntilNanos = until;
+            }
+        }
+    }
+
+    /**
+     * Refills continuously at the per-minute rate and holds at most {@link #BURST_SECONDS}
+     * worth of budget. Reservations may run into debt; the caller then waits until the
+     * debt has been refilled, which keeps admission in arrival order.
+     */
+    private static final class TokenBucket {
+        private final double capacity;
+        private final double refillPerNano;
+        private double available;
+        private long lastRefillNanos;
+
+        TokenBucket(int perMinute) {
+            this.refillPerNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.capacity = Math.max(1, perMinute * BURST_SECONDS / 60);
+            this.available = capacity;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        synchronized long reserve(double amount) {
+            long now = System.nanoTime();
+            available = Math.min(capacity, available + (now - lastRefillNanos) * refillPerNano);
+            lastRefillNanos = now;
+
+            available -= Math.min(amount, capacity);
+            return available >= 0 ? 0 : (long) (-available / refillPerNano);
+        }
+    }
+}
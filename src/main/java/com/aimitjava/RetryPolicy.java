@@ -0,0 +1,64 @@
+package com.aimitjava;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries transient failures with exponential backoff and jitter. If the API names a wait
+ * time (as OpenAI does for rate limits), the retry waits at least that long.
+ */
+class RetryPolicy {
+    private final int maxAttempts;
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    /**
+     * @param maxAttempts The total number of attempts, including the first one
+     * @param initialDelay The delay before the first retry, doubled for every further retry
+     * @param maxDelay The upper bound for the delay between attempts
+     */
+    RetryPolicy(int maxAttempts, Duration initialDelay, Duration maxDelay) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialDelayMs = Math.max(0, initialDelay.toMillis());
+        this.maxDelayMs = Math.max(initialDelayMs, maxDelay.toMillis());
+    }
+
+    /**
+     * Runs the action, retrying it while it fails with a transient error.
+     *
+     * @param action The action to run
+     * @return The result of the first successful attempt
+     * @throws RuntimeException The last error if all attempts failed or the error is not transient
+     */
+    <T> T execute(Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !OpenAiErrors.isTransient(e)) {
+                    throw e;
+                }
+                Metrics.getInstance().increment(Metrics.RETRIES);
+                sleep(delayBefore(attempt, e));
+            }
+        }
+    }
+
+    long delayBefore(int attempt, Throwable error) {
+        long exponential = Math.min(maxDelayMs, initialDelayMs << Math.min(attempt - 1, 30));
+        // Equal jitter: keep half of the backoff and randomize the rest to spread out retries
+        long jittered = exponential / 2 + ThreadLocalRandom.current().nextLong(exponential / 2 + 1);
+        long retryAfter = OpenAiErrors.retryAfter(error).map(Duration::toMillis).orElse(0L);
+        return Math.max(jittered, retryAfter);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.aimitjava;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs work items through a chain of stages. Every stage owns a bounded input queue
+ * and a fixed number of workers, so a slow stage applies back pressure to the stages
+ * in front of it instead of buffering the whole batch in memory.
+ *
+ * @param <T> The type of the work item passed from stage to stage
+ */
+class StagedPipeline<T> {
+    private static final Object END_OF_INPUT = new Object();
+    private static final long OFFER_TIMEOUT_MS = 100;
+
+    private final int queueCapacity;
+    private final List<StageDefinition<T>> definitions = new ArrayList<>();
+    private FailureHandler<T> failureHandler;
+
+    StagedPipeline(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Appends a stage to the pipeline.
+     *
+     * @param name The stage name, used for worker thread names
+     * @param parallelism The number of workers processing this stage
+     * @param virtualThreads Whether the workers run on virtual threads (for blocking I/O)
+     * @param task The work performed on every item
+     * @return This pipeline
+     */
+    StagedPipeline<T> stage(String name, int parallelism, boolean virtualThreads, Consumer<T> task) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism of stage " + name + " must be at least 1");
+        }
+        definitions.add(new StageDefinition<>(name, parallelism, virtualThreads, task));
+        return this;
+    }
+
+    /**
+     * Isolates failing items instead of cancelling the run: an item whose stage throws is handed
+     * to the handler and dropped, and the workers carry on with the next item.
+     *
+     * @param handler Receives every failed item
+     * @return This pipeline
+     */
+    StagedPipeline<T> continueOnError(FailureHandler<T> handler) {
+        this.failureHandler = handler;
+        return this;
+    }
+
+    /**
+     * Feeds all items from the source through the stages and blocks until every item
+     * has left the last stage. The source is consumed on the calling thread.
+     *
+     * @param source The items to process
+     * @throws RuntimeException The first failure raised by a stage, unless failures are handled by
+     * {@link #continueOnError(FailureHandler)}; remaining work is cancelled
+     */
+    void run(Iterator<T> source) {
+        if (definitions.isEmpty()) {
+            throw new IllegalStateException("Pipeline has no stages");
+        }
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<Stage<T>> stages = new ArrayList<>();
+        for (StageDefinition<T> definition : definitions) {
+            stages.add(new Stage<>(definition, queueCapacity, failureHandler));
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            Stage<T> next = i + 1 < stages.size() ? stages.get(i + 1) : null;
+            stages.get(i).start(next, failure, stages);
+        }
+
+        try {
+            feed(source, stages.getFirst(), failure);
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            stages.forEach(Stage::abort);
+        } finally {
+            stages.forEach(Stage::awaitTermination);
+        }
+
+        RuntimeException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void feed(Iterator<T> source, Stage<T> first, AtomicReference<RuntimeException> failure) {
+        while (source.hasNext() && failure.get() == null) {
+            if (!first.offer(source.next(), failure)) {
+                return;
+            }
+        }
+        first.offer(END_OF_INPUT, failure);
+    }
+
+    private record StageDefinition<T>(String name, int parallelism, boolean virtualThreads, Consumer<T> task) {
+    }
+
+    /**
+     * Receives items that failed in a stage when the pipeline continues on errors.
+     */
+    @FunctionalInterface
+    interface FailureHandler<T> {
+        void onFailure(T item, String stage, RuntimeException error);
+    }
+
+    private static final class Stage<T> {
+        private final StageDefinition<T> definition;
+        private final BlockingQueue<Object> queue;
+        private final AtomicInteger activeWorkers;
+        private final ExecutorService executor;
+        private final FailureHandler<T> failureHandler;
+
+        Stage(StageDefinition<T> definition, int queueCapacity, FailureHandler<T> failureHandler) {
+            this.definition = definition;
+            this.failureHandler = failureHandler;
+            this.queue = new ArrayBlockingQueue<>(queueCapacity);
+            this.activeWorkers = new AtomicInteger(definition.parallelism());
+
+            String prefix = "pipeline-" + definition.name() + "-";
+            ThreadFactory factory = definition.virtualThreads()
+                    ? Thread.ofVirtual().name(prefix, 0).factory()
+                    : Thread.ofPlatform().name(prefix, 0).factory();
+            this.executor = Executors.newThreadPerTaskExecutor(factory);
+        }
+
+        void start(Stage<T> next, AtomicReference<RuntimeException> failure, List<Stage<T>> allStages) {
+            try {
+                for (int i = 0; i < definition.parallelism(); i++) {
+                    executor.execute(() -> work(next, failure, allStages));
+                }
+            } catch (RejectedExecutionException e) {
+                // An earlier stage already failed and shut this one down
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void work(Stage<T> next, AtomicReference<RuntimeException> failure, List<Stage<T>> allStages) {
+            try {
+                while (true) {
+                    Object item = queue.take();
+                    if (item == END_OF_INPUT) {
+                        // Hand the marker on to the sibling workers; the last one signals downstream
+                        queue.put(END_OF_INPUT);
+                        if (activeWorkers.decrementAndGet() == 0 && next != null) {
+                            next.queue.put(END_OF_INPUT);
+                        }
+                        return;
+                    }
+
+                    if (process((T) item) && next != null) {
+                        next.queue.put(item);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+                allStages.forEach(Stage::abort);
+            }
+        }
+
+        private boolean process(T item) {
+            if (failureHandler == null) {
+                definition.task().accept(item);
+                return true;
+            }
+
+            try {
+                definition.task().accept(item);
+                return true;
+            } catch (RuntimeException e) {
+                failureHandler.onFailure(item, definition.name(), e);
+                return false;
+            }
+        }
+
+        boolean offer(Object item, AtomicReference<RuntimeException> failure) {
+            try {
+                while (failure.get() == null) {
+                    if (queue.offer(item, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, new IllegalStateException("Pipeline interrupted", e));
+                return false;
+            }
+        }
+
+        void abort() {
+            executor.shutdownNow();
+        }
+
+        void awaitTermination() {
+            executor.close();
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.aimitjava;
 
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 public interface Summarizer {
     /**
      * Summarizes the provided text content.
@@ -8,4 +11,55 @@ public interface Summarizer {
      * @return A summary of the input text
      */
     String summarize(String fullText);
+
+    /**
+     * Summarizes the text like {@link #summarize(String)}, reporting every finished chunk summary
+     * to the progress and reusing the chunk summaries it already holds.
+     *
+     * @param fullText The text to be summarized
+     * @param progress Records the chunk summaries of this document
+     * @return A summary of the input text
+     */
+    default String summarize(String fullText, SummaryProgress progress) {
+        return summarize(fullText);
+    }
+
+    /**
+     * Summarizes text that arrives in consecutive parts, such as ranges of PDF pages.
+     * Implementations should consume the parts incrementally instead of joining them.
+     *
+     * @param textParts The text parts in document order
+     * @return A summary of the complete text
+     */
+    default String summarizePages(Stream<String> textParts) {
+        return summarize(textParts.collect(Collectors.joining()));
+    }
+
+    /**
+     * Summarizes text parts like {@link #summarizePages(Stream)}, reporting every finished chunk
+     * summary to the progress and reusing the chunk summaries it already holds.
+     *
+     * @param textParts The text parts in document order
+     * @param progress Records the chunk summaries of this document
+     * @return A summary of the complete text
+     */
+    default String summarizePages(Stream<String> textParts, SummaryProgress progress) {
+        return summarizePages(textParts);
+    }
+
+    /**
+     * Identifies everything that influences the generated summaries, such as model and prompts.
+     * Cached summaries are only reused as long as the fingerprint stays the same.
+     *
+     * @return A stable description of the summarization settings
+     */
+    default String fingerprint() {
+        return getClass().getName();
+    }
+
+    /**
+     * Removes the intermediate results the summarizer keeps between runs, such as chunk summaries.
+     */
+    default void clearCache() {
+    }
 }
@@ -0,0 +1,166 @@
+package com.aimitjava;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Persistent, content-addressed store for summaries. Every entry is a text file named after
+ * its key. Reading an entry refreshes its modification time, so the least recently used
+ * entries are the first to be evicted once the cache grows beyond its size limit.
+ */
+public class SummaryCache {
+    private static final String ENTRY_SUFFIX = ".txt";
+    private static final String TEMP_SUFFIX = ".tmp";
+    // Document and chunk summaries share cache.max.size.mb; a document has many chunk summaries
+    static final int CHUNK_SHARE_PERCENT = 75;
+
+    private final Path directory;
+    private final long maxSizeBytes;
+    private long currentSizeBytes = -1;
+
+    SummaryCache(Path directory, long maxSizeBytes) {
+        this.directory = directory;
+        this.maxSizeBytes = maxSizeBytes;
+    }
+
+    /**
+     * Looks up a cached summary.
+     *
+     * @param key The content hash identifying the entry
+     * @return The cached summary, or empty if there is none
+     */
+    public synchronized Optional<String> get(String key) {
+        Path entry = entryPath(key);
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+
+        try {
+            String value = Files.readString(entry);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return Optional.of(value);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read cache entry " + entry + ": " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Stores a summary and evicts the least recently used entries if the size limit is exceeded.
+     *
+     * @param key The content hash identifying the entry
+     * @param value The summary to store
+     */
+    public synchronized void put(String key, String value) {
+        Path entry = entryPath(key);
+        try {
+            Files.createDirectories(directory);
+            long sizeBefore = currentSize();
+            long previousSize = Files.isRegularFile(entry) ? Files.size(entry) : 0;
+
+            Path temp = directory.resolve(key + TEMP_SUFFIX);
+            Files.writeString(temp, value);
+            try {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            currentSizeBytes = sizeBefore - previousSize + Files.size(entry);
+            evictIfNecessary();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not write cache entry " + entry + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes a single entry from the cache.
+     *
+     * @param key The content hash identifying the entry
+     */
+    public synchronized void invalidate(String key) {
+        try {
+            Files.deleteIfExists(entryPath(key));
+            currentSizeBytes = -1;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not delete cache entry " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public synchronized void clear() {
+        for (Path entry : listEntries()) {
+            try {
+                Files.deleteIfExists(entry);
+            } catch (IOException e) {
+                System.err.println("Warning: Could not delete cache entry " + entry + ": " + e.getMessage());
+            }
+        }
+        currentSizeBytes = 0;
+    }
+
+    private void evictIfNecessary() throws IOException {
+        if (currentSizeBytes <= maxSizeBytes) {
+            return;
+        }
+
+        List<Path> entries = listEntries();
+        entries.sort(Comparator.comparing(SummaryCache::lastModified));
+        for (Path entry : entries) {
+            if (currentSizeBytes <= maxSizeBytes) {
+                break;
+            }
+            long size = Files.size(entry);
+            Files.deleteIfExists(entry);
+            currentSizeBytes -= size;
+        }
+    }
+
+    private long currentSize() throws IOException {
+        if (currentSizeBytes < 0) {
+            long total = 0;
+            for (Path entry : listEntries()) {
+                total += Files.size(entry);
+            }
+            currentSizeBytes = total;
+        }
+        return currentSizeBytes;
+    }
+
+    private List<Path> listEntries() {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().endsWith(ENTRY_SUFFIX))
+                    .toList());
+        } catch (IOException e) {
+            System.err.println("Warning: Could not list cache directory " + directory + ": " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private Path entryPath(String key) {
+        return directory.resolve(key + ENTRY_SUFFIX);
+    }
+}
@@ -0,0 +1,55 @@
+package com.aimitjava;
+
+import java.util.Optional;
+
+/**
+ * Follows the summarization of a single document. Chunk summaries can be kept so they survive
+ * an interrupted run, and the final summary can be received piece by piece while it is generated.
+ */
+public interface SummaryProgress {
+    SummaryProgress NONE = new SummaryProgress() {
+        @Override
+        public Optional<String> completedChunk(int index, String prompt) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void chunkCompleted(int index, String prompt, String summary) {
+            // Nothing to record
+        }
+    };
+
+    /**
+     * @param index The position of the chunk within the document
+     * @param prompt The chunk prompt, so a recorded summary is only reused for the same chunk
+     * @return The recorded summary of the chunk, or empty if it still has to be summarized
+     */
+    Optional<String> completedChunk(int index, String prompt);
+
+    /**
+     * Records the summary of a chunk. Called concurrently as responses arrive.
+     *
+     * @param index The position of the chunk within the document
+     * @param prompt The chunk prompt
+     * @param summary The summary returned by the model
+     */
+    void chunkCompleted(int index, String prompt, String summary);
+
+    /**
+     * @return True if the final summary should be passed to {@link #finalSummaryPartial(String)}
+     * while the model generates it
+     */
+    default boolean streamsFinalSummary() {
+        return false;
+    }
+
+    /**
+     * Receives the next piece of the final summary. Summarizers that cannot stream, or documents
+     * that need no combine step, never call this; the complete summary is returned as usual.
+     *
+     * @param text The next piece of the final summary
+     */
+    default void finalSummaryPartial(String text) {
+        // Not streamed
+    }
+}
@@ -0,0 +1,232 @@
+package com.aimitjava;
+
+import dev.langchain4j.model.chat.ChatLanguageModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+
+class BatchSummarizerTest {
+
+    private ChatLanguageModel mockModel;
+    private Configuration mockConfig;
+    private InMemoryTransport transport;
+    private BatchSummarizer batchSummarizer;
+
+    @BeforeEach
+    void setUp() {
+        mockModel = mock(ChatLanguageModel.class);
+        mockConfig = mock(Configuration.class);
+        when(mockConfig.getOpenAiModelName()).thenReturn("gpt-3.5-turbo-test");
+        when(mockConfig.getOpenAiTemperature()).thenReturn(0.7);
+        when(mockConfig.getOpenAiMaxConcurrentRequests()).thenReturn(4);
+        when(mockConfig.getOpenAiReduceMaxTokens()).thenReturn(3000);
+        when(mockConfig.getOpenAiChunkMaxTokens()).thenReturn(1000);
+        when(mockConfig.getOpenAiChunkOverlapTokens()).thenReturn(100);
+
+        transport = new InMemoryTransport();
+        batchSummarizer = new BatchSummarizer(new OpenAiSummarizer(mockModel, mockConfig), transport, Duration.ZERO);
+    }
+
+    @Test
+    void shouldSubmitChunksOfAllDocumentsInOneBatchAndCombineInASecondBatch() throws IOException {
+        // Given
+        PdfJob longDocument = job("long.pdf", generateLongText(20000));
+        PdfJob shortDocument = job("short.pdf", "A short document.");
+        PdfJob blankDocument = job("blank.pdf", "   ");
+
+        // When
+        batchSummarizer.summarize(List.of(longDocument, shortDocument, blankDocument));
+
+        // Then
+        assertThat(transport.batches, hasSize(2));
+        assertThat(transport.tiers, contains(ModelTier.MAP, ModelTier.REDUCE));
+        List<BatchTransport.BatchRequest> chunkBatch = transport.batches.getFirst();
+        assertThat(chunkBatch.size(), greaterThan(2));
+        assertThat(chunkBatch.stream().map(BatchTransport.BatchRequest::prompt).toList(),
+                everyItem(containsString("Text to summarize")));
+        assertThat(chunkBatch.getLast().prompt(), containsString("A short document."));
+
+        List<BatchTransport.BatchRequest> combineBatch = transport.batches.get(1);
+        assertThat(combineBatch, hasSize(1));
+        assertThat(combineBatch.getFirst().prompt(), containsString("Summaries to combine"));
+
+        assertThat(longDocument.getSummary(), is("Summary " + combineBatch.getFirst().customId()));
+        assertThat(shortDocument.getSummary(), is("Summary " + chunkBatch.getLast().customId()));
+        assertThat(blankDocument.getSummary(), is("No content to summarize."));
+        verifyNoInteractions(mockModel);
+    }
+
+    @Test
+    void shouldPollUntilTheBatchIsComplete() throws IOException {
+        // Given
+        transport.pendingPolls = 3;
+        PdfJob document = job("doc.pdf", "A short document.");
+
+        // When
+        batchSummarizer.summarize(List.of(document));
+
+        // Then
+        assertThat(transport.polls, is(4));
+        assertThat(document.getSummary(), is("Summary " + transport.batches.getFirst().getFirst().customId()));
+    }
+
+    @Test
+    void shouldReturnDocumentsOfAFailedBatch() throws IOException {
+        // Given
+        transport.failBatches = true;
+        PdfJob document = job("doc.pdf", "A short document.");
+
+        // When
+        Map<PdfJob, String> failed = batchSummarizer.summarize(List.of(document));
+
+        // Then
+        assertThat(failed.get(document), containsString("did not complete"));
+        assertThat(document.getSummary(), is(nullValue()));
+    }
+
+    @Test
+    void shouldKeepTheResultsOfOtherDocumentsWhenAResponseIsMissing() throws IOException {
+        // Given
+        PdfJob first = job("first.pdf", "The first document.");
+        PdfJob second = job("second.pdf", "The second document.");
+        transport.droppedPrompt = "second document";
+
+        // When
+        Map<PdfJob, String> failed = batchSummarizer.summarize(List.of(first, second));
+
+        // Then
+        assertThat(failed.keySet(), contains(second));
+        assertThat(failed.get(second), containsString("second.pdf"));
+        assertThat(first.getSummary(), is("Summary " + transport.batches.getFirst().getFirst().customId()));
+    }
+
+    @Test
+    void shouldSplitPromptsIntoBatchesWithinTheLimits() throws IOException {
+        // Given
+        batchSummarizer = new BatchSummarizer(new OpenAiSummarizer(mockModel, mockConfig), transport,
+                Duration.ZERO, 2, Long.MAX_VALUE);
+        List<PdfJob> documents = List.of(job("a.pdf", "Document a."), job("b.pdf", "Document b."),
+                job("c.pdf", "Document c."));
+
+        // When
+        Map<PdfJob, String> failed = batchSummarizer.summarize(documents);
+
+        // Then
+        assertThat(failed.isEmpty(), is(true));
+        assertThat(transport.batches.stream().map(List::size).toList(), contains(2, 1));
+        assertThat(documents.get(2).getSummary(), is("Summary " + transport.batches.get(1).getFirst().customId()));
+    }
+
+    @Test
+    void shouldOnlySubmitChunksMissingFromTheProgressAndRecordTheNewOnes() throws IOException {
+        // Given
+        PdfJob document = job("long.pdf", generateLongText(20000));
+        List<String> chunkPrompts = new OpenAiSummarizer(mockModel, mockConfig).chunkPrompts(document.getText());
+        Map<Integer, String> recorded = new ConcurrentHashMap<>();
+        recorded.put(0, "Recorded summary");
+        SummaryProgress progress = new SummaryProgress() {
+            @Override
+            public Optional<String> completedChunk(int index, String prompt) {
+                return Optional.ofNullable(recorded.get(index));
+            }
+
+            @Override
+            public void chunkCompleted(int index, String prompt, String summary) {
+                recorded.put(index, summary);
+            }
+        };
+
+        // When
+        batchSummarizer.summarize(List.of(document), job -> progress);
+
+        // Then
+        assertThat(transport.batches.getFirst(), hasSize(chunkPrompts.size() - 1));
+        assertThat(recorded.keySet(), hasSize(chunkPrompts.size()));
+        assertThat(transport.batches.get(1).getFirst().prompt(), containsString("Recorded summary"));
+    }
+
+    @Test
+    void shouldReuseCachedChunkSummariesOfAnEarlierBatchRun(@TempDir Path cacheDir) throws IOException {
+        // Given
+        when(mockConfig.isCacheEnabled()).thenReturn(true);
+        when(mockConfig.getCacheDirectory()).thenReturn(cacheDir.toString());
+        when(mockConfig.getCacheMaxSizeMb()).thenReturn(10);
+        String text = generateLongText(20000);
+        new BatchSummarizer(new OpenAiSummarizer(mockModel, mockConfig), transport, Duration.ZERO)
+                .summarize(List.of(job("long.pdf", text)));
+        InMemoryTransport secondTransport = new InMemoryTransport();
+
+        // When
+        new BatchSummarizer(new OpenAiSummarizer(mockModel, mockConfig), secondTransport, Duration.ZERO)
+                .summarize(List.of(job("long.pdf", text)));
+
+        // Then
+        assertThat(secondTransport.batches, hasSize(1));
+        assertThat(secondTransport.tiers, contains(ModelTier.REDUCE));
+        assertThat(secondTransport.batches.getFirst().getFirst().prompt(), containsString("Summaries to combine"));
+    }
+
+    private static PdfJob job(String name, String text) {
+        PdfJob job = new PdfJob(new File(name));
+        job.setText(text);
+        return job;
+    }
+
+    private static String generateLongText(int approxLength) {
+        StringBuilder text = new StringBuilder(approxLength);
+        String sentence = "This is a sample sentence for testing purposes. ";
+        while (text.length() < approxLength) {
+            text.append(sentence);
+        }
+        return text.toString();
+    }
+
+    private static class InMemoryTransport implements BatchTransport {
+        private final List<List<BatchRequest>> batches = new ArrayList<>();
+        private final List<ModelTier> tiers = new ArrayList<>();
+        private int pendingPolls;
+        private int polls;
+        private boolean failBatches;
+        private String droppedPrompt;
+
+        @Override
+        public String submit(List<BatchRequest> requests, ModelTier tier) {
+            batches.add(requests);
+            tiers.add(tier);
+            return "batch-" + batches.size();
+        }
+
+        @Override
+        public Status status(String batchId) {
+            polls++;
+            if (failBatches) {
+                return Status.FAILED;
+            }
+            return polls > pendingPolls ? Status.COMPLETED : Status.IN_PROGRESS;
+        }
+
+        @Override
+        public Map<String, String> results(String batchId) {
+            Map<String, String> results = new HashMap<>();
+            batches.get(Integer.parseInt(batchId.substring("batch-".length())) - 1).stream()
+                    .filter(request -> droppedPrompt == null || !request.prompt().contains(droppedPrompt))
+                    .forEach(request -> results.put(request.customId(), "Summary " + request.customId()));
+            return results;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CheckpointJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() {
+        file = tempDir.resolve("checkpoint.jsonl");
+    }
+
+    @Test
+    void shouldRestoreChunkSummariesAndCompletedDocumentsAfterRestart() throws IOException {
+        // Given
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            journal.progress("doc-a").chunkCompleted(0, "prompt 0", "summary 0");
+            journal.progress("doc-a").chunkCompleted(2, "prompt 2", "summary 2");
+            journal.markCompleted("doc-b", new File("b.pdf"));
+        }
+
+        // When
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            SummaryProgress progress = journal.progress("doc-a");
+
+            // Then
+            assertThat(progress.completedChunk(0, "prompt 0"), is(Optional.of("summary 0")));
+            assertThat(progress.completedChunk(1, "prompt 1"), is(Optional.empty()));
+            assertThat(progress.completedChunk(2, "prompt 2"), is(Optional.of("summary 2")));
+            assertThat(journal.isCompleted("doc-a", new File("a.pdf")), is(false));
+            assertThat(journal.isCompleted("doc-b", new File("b.pdf")), is(true));
+        }
+    }
+
+    @Test
+    void shouldNotReuseSummaryWhenTheChunkPromptChanged() throws IOException {
+        // Given
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            journal.progress("doc").chunkCompleted(0, "old prompt", "old summary");
+        }
+
+        // When
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            // Then
+            assertThat(journal.progress("doc").completedChunk(0, "new prompt"), is(Optional.empty()));
+        }
+    }
+
+    @Test
+    void shouldIgnoreTornLastEntryAndKeepAppending() throws IOException {
+        // Given
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            journal.markCompleted("doc-a", new File("a.pdf"));
+        }
+        Files.writeString(file, "{\"type\":\"chunk\",\"docu", StandardOpenOption.APPEND);
+
+        // When
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            journal.markCompleted("doc-b", new File("b.pdf"));
+        }
+
+        // Then
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            assertThat(journal.isCompleted("doc-a", new File("a.pdf")), is(true));
+            assertThat(journal.isCompleted("doc-b", new File("b.pdf")), is(true));
+        }
+    }
+
+    @Test
+    void shouldDeleteJournalWhenCleared() throws IOException {
+        // Given
+        CheckpointJournal journal = new CheckpointJournal(file);
+        journal.markCompleted("doc", new File("doc.pdf"));
+
+        // When
+        journal.clear();
+
+        // Then
+        assertThat(Files.exists(file), is(false));
+        assertThat(journal.isCompleted("doc", new File("doc.pdf")), is(false));
+    }
+
+    @Test
+    void shouldTrackCompletedDocumentsPerFile() throws IOException {
+        // Given
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            journal.markCompleted("same-content", new File("a.pdf"));
+        }
+
+        // When
+        try (CheckpointJournal journal = new CheckpointJournal(file)) {
+            // Then
+            assertThat(journal.isCompleted("same-content", new File("a.pdf")), is(true));
+            assertThat(journal.isCompleted("same-content", new File("b.pdf")), is(false));
+        }
+    }
+
+    @Test
+    void shouldKeepOnlyChunksOfUnfinishedDocumentsWhenCompacted() throws IOException {
+        // Given
+        CheckpointJournal journal = new CheckpointJournal(file);
+        journal.progress("doc-a").chunkCompleted(0, "prompt a", "summary a");
+        journal.progress("doc-b").chunkCompleted(0, "prompt b", "summary b");
+        journal.markCompleted("doc-b", new File("b.pdf"));
+
+        // When
+        journal.compact();
+        journal.progress("doc-c").chunkCompleted(0, "prompt c", "summary c");
+        journal.close();
+
+        // Then
+        assertThat(Files.readAllLines(file), hasSize(2));
+        try (CheckpointJournal reopened = new CheckpointJournal(file)) {
+            assertThat(reopened.progress("doc-a").completedChunk(0, "prompt a"), is(Optional.of("summary a")));
+            assertThat(reopened.progress("doc-c").completedChunk(0, "prompt c"), is(Optional.of("summary c")));
+            assertThat(reopened.isCompleted("doc-b", new File("b.pdf")), is(false));
+        }
+    }
+}
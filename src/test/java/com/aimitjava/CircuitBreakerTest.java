@@ -0,0 +1,63 @@
+package com.aimitjava;
+
+import dev.langchain4j.exception.HttpException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    void shouldOpenAfterConsecutiveFailuresAndFailFast() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(2, Duration.ofMinutes(1));
+        failOnce(breaker);
+        failOnce(breaker);
+
+        // When/Then
+        assertThat(breaker.getState(), is(CircuitBreaker.State.OPEN));
+        Assertions.assertThrows(CircuitOpenException.class, () -> breaker.execute(() -> "never called"));
+    }
+
+    @Test
+    void shouldCloseAgainAfterSuccessfulTrialCall() throws InterruptedException {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMillis(20));
+        failOnce(breaker);
+        Thread.sleep(30);
+
+        // When
+        String result = breaker.execute(() -> "recovered");
+
+        // Then
+        assertThat(result, is("recovered"));
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void shouldIgnoreRateLimitsAndClientErrors() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(1, Duration.ofMinutes(1));
+
+        // When
+        Assertions.assertThrows(HttpException.class, () -> breaker.execute(() -> {
+            throw new HttpException(429, "Rate limit reached");
+        }));
+        Assertions.assertThrows(HttpException.class, () -> breaker.execute(() -> {
+            throw new HttpException(400, "Bad request");
+        }));
+
+        // Then
+        assertThat(breaker.getState(), is(CircuitBreaker.State.CLOSED));
+    }
+
+    private static void failOnce(CircuitBreaker breaker) {
+        Assertions.assertThrows(HttpException.class, () -> breaker.execute(() -> {
+            throw new HttpException(503, "Service unavailable");
+        }));
+    }
+}
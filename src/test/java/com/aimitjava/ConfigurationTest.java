@@ -5,6 +5,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.when;
@@ -60,4 +64,33 @@ class ConfigurationTest {
         // Then
         assertThat(configuration.getOpenAiApiKey(), is("test-key-from-properties"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldLeaveUnsetTierSettingsEmpty() {
+        // Given
+        when(mockEnvironmentProvider.getEnv(Mockito.anyString())).thenReturn(null);
+        when(mockEnvironmentProvider.getEnv("openai.reduce.model.name")).thenReturn("gpt-4o");
+        when(mockEnvironmentProvider.getEnv("openai.reduce.max.concurrent.requests")).thenReturn("2");
+        configuration = new Configuration(mockEnvironmentProvider);
+
+        // Then
+        assertThat(configuration.getOpenAiModelName(ModelTier.REDUCE), is(Optional.of("gpt-4o")));
+        assertThat(configuration.getOpenAiMaxConcurrentRequests(ModelTier.REDUCE), is(OptionalInt.of(2)));
+        assertThat(configuration.getOpenAiModelName(ModelTier.MAP), is(Optional.empty()));
+        assertThat(configuration.getOpenAiTemperature(ModelTier.MAP), is(OptionalDouble.empty()));
+        assertThat(configuration.getOpenAiBaseUrl(), is(nullValue()));
+    }
+
+    @Test
+    void shouldTreatBlankGlobsAsUnset() {
+        // Given
+        when(mockEnvironmentProvider.getEnv(Mockito.anyString())).thenReturn(null);
+
+        // When: the test properties leave both globs blank, as in the README
+        configuration = new Configuration(mockEnvironmentProvider);
+
+        // Then
+        assertThat(configuration.getPdfIncludeGlob(), is(nullValue()));
+        assertThat(configuration.getPdfExcludeGlob(), is(nullValue()));
+    }
+}
@@ -0,0 +1,73 @@
+package com.aimitjava;
+
+import dev.langchain4j.model.Tokenizer;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExtractiveCompressorTest {
+
+    private final Tokenizer tokenizer = new OpenAiTokenizer("gpt-3.5-turbo");
+
+    @Test
+    void shouldReturnTextWithinBudgetUnchanged() {
+        // Given
+        ExtractiveCompressor compressor = new ExtractiveCompressor(1000, tokenizer);
+        String text = "A short document.\nIt fits the budget.";
+
+        // When/Then
+        assertThat(compressor.compress(text), is(text));
+        assertThat(compressor.compress(null), is(nullValue()));
+    }
+
+    @Test
+    void shouldKeepCentralSentencesInDocumentOrderWithinBudget() {
+        // Given
+        String text = """
+                Solar panels convert sunlight into electricity for homes.
+                The weather in the village was pleasant that afternoon.
+
+                Modern solar panels convert more sunlight than older panels.
+                Homes with solar panels need less electricity from the grid.
+                A cat slept on the warm windowsill.
+                """;
+        ExtractiveCompressor compressor = new ExtractiveCompressor(35, tokenizer);
+
+        // When
+        String compressed = compressor.compress(text);
+
+        // Then
+        assertThat(tokenizer.estimateTokenCountInText(compressed), lessThanOrEqualTo(35));
+        assertThat(compressed, stringContainsInOrder(
+                "Solar panels convert sunlight into electricity for homes.",
+                "Modern solar panels convert more sunlight than older panels."));
+        assertThat(compressed, not(containsString("cat slept")));
+        assertThat(compressed, not(containsString("weather")));
+        assertThat(compressed, containsString("\n\n"));
+    }
+
+    @Test
+    void shouldKeepRepeatedSentencesOnlyOnce() {
+        // Given
+        String boilerplate = "Confidential report of the solar energy department.";
+        String text = (boilerplate + "\n\nSolar energy output grew strongly this year.\n\n").repeat(5)
+                + "Solar energy storage remains the main challenge of the department.";
+        ExtractiveCompressor compressor = new ExtractiveCompressor(60, tokenizer);
+
+        // When
+        String compressed = compressor.compress(text);
+
+        // Then
+        assertThat(compressed.split("Confidential report", -1).length - 1, is(1));
+        assertThat(compressed.split("output grew", -1).length - 1, is(1));
+        assertThat(compressed, containsString("storage remains the main challenge"));
+    }
+
+    @Test
+    void shouldRejectEmptyBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ExtractiveCompressor(0, tokenizer));
+    }
+}
@@ -0,0 +1,90 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GroupCommitWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldWriteAllQueuedFilesWithoutLeavingTemporaryFiles() throws IOException {
+        // Given
+        List<CompletableFuture<Path>> writes = new ArrayList<>();
+
+        // When
+        try (GroupCommitWriter writer = new GroupCommitWriter(4, 3, Duration.ofMillis(5))) {
+            for (int i = 0; i < 10; i++) {
+                writes.add(writer.submit(tempDir.resolve("summary-" + i + ".md"), "Summary " + i));
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 10; i++) {
+            assertThat(writes.get(i).join(), is(tempDir.resolve("summary-" + i + ".md")));
+            assertThat(Files.readString(tempDir.resolve("summary-" + i + ".md")), is("Summary " + i));
+        }
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files.filter(file -> file.toString().endsWith(".partial")).toList(), is(empty()));
+        }
+    }
+
+    @Test
+    void shouldReplaceExistingFile() throws IOException {
+        // Given
+        Path target = Files.writeString(tempDir.resolve("summary.md"), "Old summary");
+
+        // When
+        try (GroupCommitWriter writer = new GroupCommitWriter(4, 4, Duration.ofMillis(5))) {
+            writer.submit(target, "New summary").join();
+        }
+
+        // Then
+        assertThat(Files.readString(target), is("New summary"));
+    }
+
+    @Test
+    void shouldOnlyFailTheFileThatCannotBeWritten() {
+        // Given
+        Path good = tempDir.resolve("good.md");
+        Path bad = tempDir.resolve("missing-directory").resolve("bad.md");
+        CompletableFuture<Path> goodWrite;
+        CompletableFuture<Path> badWrite;
+
+        // When
+        try (GroupCommitWriter writer = new GroupCommitWriter(4, 4, Duration.ofMillis(50))) {
+            badWrite = writer.submit(bad, "Bad");
+            goodWrite = writer.submit(good, "Good");
+        }
+
+        // Then
+        assertThat(goodWrite.join(), is(good));
+        CompletionException exception = assertThrows(CompletionException.class, badWrite::join);
+        assertThat(exception.getCause(), instanceOf(IOException.class));
+    }
+
+    @Test
+    void shouldRejectSubmissionsAfterClose() {
+        // Given
+        GroupCommitWriter writer = new GroupCommitWriter(1, 1, Duration.ZERO);
+        writer.close();
+
+        // When/Then
+        assertThrows(IllegalStateException.class, () -> writer.submit(tempDir.resolve("late.md"), "Late"));
+    }
+}
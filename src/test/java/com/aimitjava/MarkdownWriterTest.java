@@ -54,6 +54,46 @@ class MarkdownWriterTest {
         LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
     }
 
+    @Test
+    void shouldStreamSummaryIntoPartialFileAndRenameItOnCommit() throws IOException {
+        // Given
+        String summary = "This is a test summary.";
+        Path partialFile = tempPdfFile.toPath().resolveSibling("test.pdf.md.partial");
+        Path markdownFile = tempPdfFile.toPath().resolveSibling("test.pdf.md");
+
+        // When
+        try (MarkdownWriter.SummaryStream stream = writer.openSummary(tempPdfFile)) {
+            stream.append("This is a test ");
+            assertThat(Files.readString(partialFile), endsWith("## Summary\n\nThis is a test "));
+            assertThat(Files.exists(markdownFile), is(false));
+            stream.append("summary.");
+            stream.commit();
+        }
+
+        // Then
+        assertThat(Files.exists(partialFile), is(false));
+        String streamed = Files.readString(markdownFile);
+        writer.writeSummary(summary, tempPdfFile);
+        String written = Files.readString(markdownFile);
+        assertThat(streamed.replaceAll("Generated on:\\*\\* .*", ""),
+                is(written.replaceAll("Generated on:\\*\\* .*", "")));
+    }
+
+    @Test
+    void shouldDiscardPartialFileWhenStreamIsNotCommitted() throws IOException {
+        // Given
+        Path partialFile = tempPdfFile.toPath().resolveSibling("test.pdf.md.partial");
+
+        // When
+        try (MarkdownWriter.SummaryStream stream = writer.openSummary(tempPdfFile)) {
+            stream.append("Half a summ");
+        }
+
+        // Then
+        assertThat(Files.exists(partialFile), is(false));
+        assertThat(Files.exists(tempPdfFile.toPath().resolveSibling("test.pdf.md")), is(false));
+    }
+
     @Test
     void shouldThrowExceptionForNonexistentFile() {
         // Given
@@ -0,0 +1,83 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class MetricsTest {
+
+    private Metrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new Metrics();
+    }
+
+    @Test
+    void shouldRenderCountersAndTimersInPrometheusFormat() {
+        // Given
+        metrics.increment(Metrics.PAGES, 12);
+        metrics.increment(Metrics.PAGES, 3);
+        metrics.increment(Metrics.CACHE_HITS, "cache", "document", 1);
+        metrics.increment(Metrics.CACHE_HITS, "cache", "chunk", 2);
+        metrics.startTimer("extraction").stop();
+        metrics.startTimer("extraction").stop();
+
+        // When
+        String text = metrics.toPrometheusText();
+
+        // Then
+        assertThat(text, containsString("# TYPE pdfsum_pages_total counter\npdfsum_pages_total 15\n"));
+        assertThat(text, containsString("pdfsum_cache_hits_total{cache=\"chunk\"} 2\n"));
+        assertThat(text, containsString("pdfsum_cache_hits_total{cache=\"document\"} 1\n"));
+        assertThat(text.split("# TYPE pdfsum_cache_hits_total", -1).length, is(2));
+        assertThat(text, containsString("# TYPE pdfsum_stage_duration_seconds summary"));
+        assertThat(text, containsString("pdfsum_stage_duration_seconds_count{stage=\"extraction\"} 2\n"));
+        assertThat(text, containsString("pdfsum_stage_duration_seconds_sum{stage=\"extraction\"} "));
+    }
+
+    @Test
+    void shouldWriteMetricsFile(@TempDir Path tempDir) throws IOException {
+        // Given
+        metrics.increment(Metrics.DOCUMENTS);
+        Path file = tempDir.resolve("metrics/pdfsum.prom");
+
+        // When
+        metrics.writeTo(file);
+
+        // Then
+        assertThat(Files.readString(file), is(metrics.toPrometheusText()));
+        try (var files = Files.list(file.getParent())) {
+            assertThat(files.count(), is(1L));
+        }
+    }
+
+    @Test
+    void shouldServeMetricsForScraping() throws Exception {
+        // Given
+        metrics.increment(Metrics.CHUNKS, 7);
+
+        try (MetricsEndpoint endpoint = new MetricsEndpoint(0, metrics)) {
+            // When
+            HttpResponse<String> response = HttpClient.newHttpClient().send(
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + endpoint.getPort() + "/metrics")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+
+            // Then
+            assertThat(response.statusCode(), is(200));
+            assertThat(response.headers().firstValue("Content-Type").orElse(""), startsWith("text/plain"));
+            assertThat(response.body(), containsString("pdfsum_chunks_total 7"));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NearDuplicateIndexTest {
+
+    private static final String SETTINGS = "gpt-test";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldMatchDocumentThatOnlyDiffersInItsCoverPage() throws IOException {
+        // Given
+        String report = generateText(new Random(1), 3000);
+        long original = NearDuplicateIndex.fingerprint("Annual Report 2023 Draft\n\n" + report).orElseThrow();
+        long reExport = NearDuplicateIndex.fingerprint("ANNUAL REPORT 2023 - Final Version\n\n" + report).orElseThrow();
+        NearDuplicateIndex index = new NearDuplicateIndex(tempDir.resolve("index.jsonl"), 0.9);
+        index.add(original, SETTINGS, "report-draft.pdf", "Report summary");
+
+        // When
+        Optional<NearDuplicateIndex.Match> match = index.find(reExport, SETTINGS);
+
+        // Then
+        assertThat(match.isPresent(), is(true));
+        assertThat(match.get().file(), is("report-draft.pdf"));
+        assertThat(match.get().summary(), is("Report summary"));
+        assertThat(match.get().similarity(), greaterThanOrEqualTo(0.9));
+    }
+
+    @Test
+    void shouldNotMatchUnrelatedDocumentsOrOtherSettings() throws IOException {
+        // Given
+        long first = NearDuplicateIndex.fingerprint(generateText(new Random(1), 3000)).orElseThrow();
+        long second = NearDuplicateIndex.fingerprint(generateText(new Random(2), 3000)).orElseThrow();
+        NearDuplicateIndex index = new NearDuplicateIndex(tempDir.resolve("index.jsonl"), 0.9);
+        index.add(first, SETTINGS, "first.pdf", "First summary");
+
+        // When/Then
+        assertThat(NearDuplicateIndex.similarity(first, second), lessThan(0.9));
+        assertThat(index.find(second, SETTINGS).isPresent(), is(false));
+        assertThat(index.find(first, "other-model").isPresent(), is(false));
+    }
+
+    @Test
+    void shouldKeepEntriesBetweenRuns() throws IOException {
+        // Given
+        Path file = tempDir.resolve("index.jsonl");
+        long simHash = NearDuplicateIndex.fingerprint(generateText(new Random(3), 500)).orElseThrow();
+        new NearDuplicateIndex(file, 0.95).add(simHash, SETTINGS, "first.pdf", "First summary");
+
+        // When
+        Optional<NearDuplicateIndex.Match> match = new NearDuplicateIndex(file, 0.95).find(simHash, SETTINGS);
+
+        // Then
+        assertThat(match.map(NearDuplicateIndex.Match::summary), is(Optional.of("First summary")));
+        assertThat(match.get().similarity(), is(1.0));
+    }
+
+    @Test
+    void shouldNotFingerprintVeryShortTexts() {
+        assertThat(NearDuplicateIndex.fingerprint("Only a few words here").isPresent(), is(false));
+        assertThat(NearDuplicateIndex.fingerprint(null).isPresent(), is(false));
+    }
+
+    @Test
+    void shouldRejectInvalidSimilarity() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new NearDuplicateIndex(tempDir.resolve("index.jsonl"), 1.5));
+    }
+
+    private static String generateText(Random random, int words) {
+        String[] vocabulary = {"revenue", "growth", "market", "customer", "product", "quarter", "increase",
+                "decline", "strategy", "investment", "region", "sales", "cost", "margin", "team", "risk",
+                "supply", "demand", "forecast", "result", "the", "of", "and", "in", "to", "a", "with"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(vocabulary[random.nextInt(vocabulary.length)]).append(i % 12 == 11 ? ". " : " ");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,149 @@
+package com.aimitjava;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OpenAiBatchTransportTest {
+
+    private HttpServer server;
+    private OpenAiBatchTransport transport;
+    private final Map<String, String> requestBodies = new ConcurrentHashMap<>();
+    private volatile String batchStatus = "in_progress";
+
+    @BeforeEach
+    void setUp() throws IOException {
+        // Local stand-in for the Files and Batches endpoints
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/v1/files", this::handleFiles);
+        server.createContext("/v1/batches", this::handleBatches);
+        server.start();
+
+        transport = new OpenAiBatchTransport("http://localhost:" + server.getAddress().getPort() + "/v1",
+                "test-api-key", "gpt-3.5-turbo-test", 0.7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void shouldUploadPromptsAsJsonlAndCreateABatch() throws IOException {
+        // When
+        String batchId = transport.submit(List.of(
+                new BatchTransport.BatchRequest("a", "First prompt"),
+                new BatchTransport.BatchRequest("b", "Second \"quoted\" prompt")), ModelTier.MAP);
+
+        // Then
+        assertThat(batchId, is("batch_1"));
+        String upload = requestBodies.get("POST /v1/files");
+        assertThat(upload, containsString("name=\"purpose\"\r\n\r\nbatch"));
+        assertThat(upload, containsString("\"custom_id\":\"a\""));
+        assertThat(upload, containsString("\"model\":\"gpt-3.5-turbo-test\""));
+        assertThat(upload, containsString("Second \\\"quoted\\\" prompt"));
+
+        String batch = requestBodies.get("POST /v1/batches");
+        assertThat(batch, containsString("\"input_file_id\":\"file_in\""));
+        assertThat(batch, containsString("\"endpoint\":\"/v1/chat/completions\""));
+        assertThat(batch, containsString("\"completion_window\":\"24h\""));
+    }
+
+    @Test
+    void shouldSendPromptsToTheModelOfTheirTier() throws IOException {
+        // Given
+        transport = new OpenAiBatchTransport("http://localhost:" + server.getAddress().getPort() + "/v1",
+                "test-api-key", Map.of(
+                        ModelTier.MAP, new OpenAiBatchTransport.BatchModel("small-model", 0.2),
+                        ModelTier.REDUCE, new OpenAiBatchTransport.BatchModel("large-model", 0.5)));
+
+        // When
+        transport.submit(List.of(new BatchTransport.BatchRequest("a", "Combine these")), ModelTier.REDUCE);
+
+        // Then
+        String upload = requestBodies.get("POST /v1/files");
+        assertThat(upload, containsString("\"model\":\"large-model\""));
+        assertThat(upload, containsString("\"temperature\":0.5"));
+    }
+
+    @Test
+    void shouldMapBatchStates() throws IOException {
+        assertThat(transport.status("batch_1"), is(BatchTransport.Status.IN_PROGRESS));
+
+        batchStatus = "completed";
+        assertThat(transport.status("batch_1"), is(BatchTransport.Status.COMPLETED));
+
+        batchStatus = "expired";
+        assertThat(transport.status("batch_1"), is(BatchTransport.Status.FAILED));
+    }
+
+    @Test
+    void shouldReturnContentOfSuccessfulResponses() throws IOException {
+        // Given
+        batchStatus = "completed";
+
+        // When
+        Map<String, String> results = transport.results("batch_1");
+
+        // Then
+        assertThat(results, is(Map.of("a", "Summary A")));
+    }
+
+    @Test
+    void shouldReportFailedRequests() {
+        IOException exception = assertThrows(IOException.class, () -> transport.status("unknown"));
+        assertThat(exception.getMessage(), containsString("404"));
+    }
+
+    private void handleFiles(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        if (exchange.getRequestMethod().equals("POST")) {
+            record(exchange);
+            respond(exchange, 200, "{\"id\":\"file_in\"}");
+        } else if (path.equals("/v1/files/file_out/content")) {
+            respond(exchange, 200, """
+                    {"custom_id":"a","response":{"status_code":200,"body":{"choices":[{"message":{"role":"assistant","content":"Summary A"}}]}}}
+                    {"custom_id":"b","response":{"status_code":500,"body":{}}}
+                    """);
+        } else {
+            respond(exchange, 404, "{}");
+        }
+    }
+
+    private void handleBatches(HttpExchange exchange) throws IOException {
+        if (exchange.getRequestMethod().equals("POST")) {
+            record(exchange);
+            respond(exchange, 200, "{\"id\":\"batch_1\",\"status\":\"validating\"}");
+        } else if (exchange.getRequestURI().getPath().equals("/v1/batches/batch_1")) {
+            respond(exchange, 200, "{\"id\":\"batch_1\",\"status\":\"" + batchStatus + "\","
+                    + "\"output_file_id\":\"file_out\"}");
+        } else {
+            respond(exchange, 404, "{\"error\":\"not found\"}");
+        }
+    }
+
+    private void record(HttpExchange exchange) throws IOException {
+        requestBodies.put(exchange.getRequestMethod() + " " + exchange.getRequestURI().getPath(),
+                new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
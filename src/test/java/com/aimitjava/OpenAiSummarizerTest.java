@@ -1,18 +1,40 @@
 package com.aimitjava;
 
+import dev.langchain4j.exception.HttpException;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.Tokenizer;
 import dev.langchain4j.model.chat.ChatLanguageModel;
+import dev.langchain4j.model.chat.StreamingChatLanguageModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.openai.OpenAiTokenizer;
+import dev.langchain4j.model.output.TokenUsage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.ArgumentCaptor;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -25,17 +47,35 @@ class OpenAiSummarizerTest {
 
     @BeforeEach
     void setUp() {
-        mockModel = mock(ChatLanguageModel.class);
+        mockModel = mockPromptModel();
         mockConfig = mock(Configuration.class);
         promptCaptor = ArgumentCaptor.forClass(String.class);
 
         when(mockConfig.getOpenAiApiKey()).thenReturn("test-api-key");
         when(mockConfig.getOpenAiModelName()).thenReturn("gpt-3.5-turbo-test");
         when(mockConfig.getOpenAiTemperature()).thenReturn(0.7);
+        when(mockConfig.getOpenAiMaxConcurrentRequests()).thenReturn(4);
+        when(mockConfig.getOpenAiReduceMaxTokens()).thenReturn(3000);
+        when(mockConfig.getOpenAiChunkMaxTokens()).thenReturn(1000);
+        when(mockConfig.getOpenAiChunkOverlapTokens()).thenReturn(100);
 
         summarizer = new OpenAiSummarizer(mockModel);
     }
 
+    /**
+     * The summarizer sends chat requests to read the reported token usage; the stubs and
+     * verifications of these tests work on the prompt text, so requests are answered by chat(String).
+     */
+    private static ChatLanguageModel mockPromptModel() {
+        ChatLanguageModel model = mock(ChatLanguageModel.class);
+        when(model.chat(any(ChatRequest.class))).thenAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            String prompt = ((UserMessage) request.messages().getFirst()).singleText();
+            return ChatResponse.builder().aiMessage(AiMessage.from(model.chat(prompt))).build();
+        });
+        return model;
+    }
+
     private static Stream<Arguments> emptyOrInvalidTextCases() {
         return Stream.of(
                 Arguments.of(""),
@@ -102,6 +142,381 @@ class OpenAiSummarizerTest {
         assertThat(result, is(finalSummary));
     }
 
+    @Test
+    void shouldPackChunksUpToTheContextWindowWhenNoChunkSizeIsConfigured() {
+        // Given
+        when(mockConfig.getOpenAiChunkMaxTokens()).thenReturn(0);
+        when(mockConfig.getOpenAiContextWindowTokens()).thenReturn(16385);
+        when(mockModel.chat(anyString())).thenReturn("Summary");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+
+        // When
+        summarizer.summarize(generateLongText(40000));
+
+        // Then
+        verify(mockModel, times(1)).chat(contains("Text to summarize"));
+        verify(mockModel, never()).chat(contains("Summaries to combine"));
+    }
+
+    @Test
+    void shouldKeepChunksWithinTheConfiguredTokenSize() {
+        // Given
+        OpenAiSummarizer openAiSummarizer = new OpenAiSummarizer(mockModel, mockConfig);
+        Tokenizer tokenizer = new OpenAiTokenizer("gpt-3.5-turbo");
+        int templateTokens = tokenizer.estimateTokenCountInText(openAiSummarizer.chunkPrompts("x").getFirst());
+
+        // When
+        List<String> prompts = openAiSummarizer.chunkPrompts(generateLongText(40000));
+
+        // Then
+        assertThat(prompts.size(), is(greaterThan(5)));
+        assertThat(prompts.stream().map(tokenizer::estimateTokenCountInText).toList(),
+                everyItem(lessThanOrEqualTo(templateTokens + 1000)));
+    }
+
+    @Test
+    void shouldRejectChunkSizesThatLeaveNoRoomBeyondTheOverlap() {
+        // Given
+        when(mockConfig.getOpenAiChunkMaxTokens()).thenReturn(0);
+        when(mockConfig.getOpenAiContextWindowTokens()).thenReturn(1000);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> new OpenAiSummarizer(mockModel, mockConfig));
+    }
+
+    @Test
+    void shouldSendChunksToTheMapModelAndCombineRequestsToTheReduceModel() {
+        // Given
+        ChatLanguageModel reduceModel = mockPromptModel();
+        when(mockModel.chat(anyString())).thenReturn("Chunk summary");
+        when(reduceModel.chat(anyString())).thenReturn("Final summary");
+        String fingerprint = new OpenAiSummarizer(mockModel, mockConfig).fingerprint();
+        when(mockConfig.getOpenAiModelName(ModelTier.MAP)).thenReturn(Optional.of("gpt-4o-mini"));
+        when(mockConfig.getOpenAiModelName(ModelTier.REDUCE)).thenReturn(Optional.of("gpt-4o"));
+        OpenAiSummarizer openAiSummarizer = new OpenAiSummarizer(mockModel, reduceModel, null, mockConfig);
+
+        // When
+        String result = openAiSummarizer.summarize(generateLongText(20000));
+
+        // Then
+        assertThat(result, is("Final summary"));
+        verify(mockModel, atLeast(2)).chat(contains("Text to summarize"));
+        verify(mockModel, never()).chat(contains("Summaries to combine"));
+        verify(reduceModel, times(1)).chat(contains("Summaries to combine"));
+        verify(reduceModel, never()).chat(contains("Text to summarize"));
+        assertThat(openAiSummarizer.fingerprint(), allOf(not(fingerprint), containsString("gpt-4o-mini")));
+    }
+
+    @Test
+    void shouldFallBackToTheDefaultTokenizerForModelsOfOtherBackends() {
+        assertThat(OpenAiSummarizer.tokenizerFor("llama3.1:8b").estimateTokenCountInText("Hello world"),
+                is(greaterThan(0)));
+    }
+
+    @Test
+    void shouldRecordTokenUsageReportedByTheApi() {
+        // Given
+        Metrics.reset();
+        ChatLanguageModel model = mock(ChatLanguageModel.class);
+        when(model.chat(any(ChatRequest.class))).thenReturn(ChatResponse.builder()
+                .aiMessage(AiMessage.from("Summary"))
+                .tokenUsage(new TokenUsage(1234, 56))
+                .build());
+
+        // When
+        new OpenAiSummarizer(model, mockConfig).summarize("A short document.");
+
+        // Then
+        assertThat(Metrics.getInstance().getCount(Metrics.PROMPT_TOKENS), is(1234L));
+        assertThat(Metrics.getInstance().getCount(Metrics.COMPLETION_TOKENS), is(56L));
+    }
+
+    @Test
+    void shouldRecordChunksTokensAndStageTimes() {
+        // Given
+        Metrics.reset();
+        when(mockModel.chat(anyString())).thenReturn("Summary");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+        String text = generateLongText(20000);
+
+        // When
+        summarizer.summarize(text);
+
+        // Then
+        Metrics metrics = Metrics.getInstance();
+        long chunks = metrics.getCount(Metrics.CHUNKS);
+        assertThat(chunks, is(greaterThan(1L)));
+        assertThat(metrics.getCount(Metrics.CHARACTERS), is((long) text.length()));
+        assertThat(metrics.getTimerCount("chat"), is(chunks + 1));
+        assertThat(metrics.getTimerCount("reduce"), is(1L));
+        assertThat(metrics.getCount(Metrics.PROMPT_TOKENS), is(greaterThan(4000L)));
+        assertThat(metrics.getCount(Metrics.COMPLETION_TOKENS), is(chunks + 1));
+    }
+
+    @Test
+    void shouldResumeFromRecordedChunkSummariesAndRecordNewOnes() {
+        // Given
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Fresh chunk summary");
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        OpenAiSummarizer openAiSummarizer = new OpenAiSummarizer(mockModel, mockConfig);
+        String text = generateLongText(20000);
+        List<String> prompts = openAiSummarizer.chunkPrompts(text);
+        Map<Integer, String> recorded = new ConcurrentHashMap<>();
+        for (int i = 0; i < prompts.size() - 1; i++) {
+            recorded.put(i, "Recorded summary " + i);
+        }
+        SummaryProgress progress = new SummaryProgress() {
+            @Override
+            public Optional<String> completedChunk(int index, String prompt) {
+                return Optional.ofNullable(recorded.get(index));
+            }
+
+            @Override
+            public void chunkCompleted(int index, String prompt, String summary) {
+                recorded.put(index, summary);
+            }
+        };
+
+        // When
+        String result = openAiSummarizer.summarize(text, progress);
+
+        // Then
+        verify(mockModel, times(2)).chat(promptCaptor.capture());
+        assertThat(promptCaptor.getAllValues().getFirst(), is(prompts.getLast()));
+        assertThat(promptCaptor.getAllValues().getLast(), allOf(containsString("Summaries to combine"),
+                containsString("Recorded summary 0"), containsString("Fresh chunk summary")));
+        assertThat(recorded.get(prompts.size() - 1), is("Fresh chunk summary"));
+        assertThat(result, is("Final summary"));
+    }
+
+    @Test
+    void shouldStreamTheFinalCombineStepToTheProgress() {
+        // Given
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Chunk summary");
+        StreamingChatLanguageModel streamingModel = mock(StreamingChatLanguageModel.class);
+        doAnswer(invocation -> {
+            StreamingChatResponseHandler handler = invocation.getArgument(1);
+            handler.onPartialResponse("Final ");
+            handler.onPartialResponse("summary");
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from("Final summary")).build());
+            return null;
+        }).when(streamingModel).chat(contains("Summaries to combine"), any(StreamingChatResponseHandler.class));
+        summarizer = new OpenAiSummarizer(mockModel, streamingModel, mockConfig);
+        StringBuilder streamed = new StringBuilder();
+        SummaryProgress progress = new SummaryProgress() {
+            @Override
+            public Optional<String> completedChunk(int index, String prompt) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void chunkCompleted(int index, String prompt, String summary) {
+            }
+
+            @Override
+            public boolean streamsFinalSummary() {
+                return true;
+            }
+
+            @Override
+            public void finalSummaryPartial(String text) {
+                streamed.append(text);
+            }
+        };
+
+        // When
+        String result = summarizer.summarize(generateLongText(20000), progress);
+
+        // Then
+        assertThat(streamed.toString(), is("Final summary"));
+        assertThat(result, is("Final summary"));
+        verify(mockModel, never()).chat(contains("Summaries to combine"));
+    }
+
+    @Test
+    void shouldKeepChunkOrderAndRespectConcurrencyCapWhenSummarizingInParallel() {
+        // Given
+        when(mockConfig.getOpenAiMaxConcurrentRequests()).thenReturn(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(mockModel.chat(contains("Text to summarize"))).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            String prompt = invocation.getArgument(0);
+            Thread.sleep(prompt.contains("Section 0") ? 50 : 5);
+            active.decrementAndGet();
+            Matcher matcher = Pattern.compile("Section (\\d+)").matcher(prompt);
+            return matcher.find() ? "Summary of section " + matcher.group(1) : "Summary";
+        });
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+
+        StringBuilder text = new StringBuilder();
+        for (int section = 0; section < 6; section++) {
+            text.append("Section ").append(section).append(". ").append(generateLongText(7000)).append("\n\n");
+        }
+
+        // When
+        String result = summarizer.summarize(text.toString());
+
+        // Then
+        verify(mockModel, atLeast(2)).chat(promptCaptor.capture());
+        String finalPrompt = promptCaptor.getAllValues().getLast();
+        assertThat(finalPrompt, stringContainsInOrder(
+                "Summary of section 0", "Summary of section 1", "Summary of section 2",
+                "Summary of section 3", "Summary of section 4", "Summary of section 5"));
+        assertThat(maxActive.get(), is(lessThanOrEqualTo(2)));
+        assertThat(result, is("Final"));
+    }
+
+    @Test
+    void shouldReduceChunkSummariesInSeveralLevelsWhenTheyExceedTheTokenBudget() {
+        // Given
+        when(mockConfig.getOpenAiReduceMaxTokens()).thenReturn(20);
+        when(mockModel.chat(contains("Text to summarize")))
+                .thenReturn("A chunk summary with a handful of words in it.");
+        when(mockModel.chat(contains("Summaries to combine")))
+                .thenReturn("A combined summary.");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+
+        // When
+        String result = summarizer.summarize(generateLongText(60000));
+
+        // Then
+        verify(mockModel, atLeast(2)).chat(promptCaptor.capture());
+        List<String> combinePrompts = promptCaptor.getAllValues().stream()
+                .filter(prompt -> prompt.contains("Summaries to combine"))
+                .toList();
+        assertThat(combinePrompts.size(), is(greaterThan(2)));
+        assertThat(combinePrompts.getLast(), containsString("A combined summary."));
+        assertThat(combinePrompts.getLast(), not(containsString("A chunk summary")));
+        assertThat(result, is("A combined summary."));
+    }
+
+    @Test
+    void shouldOnlySummarizeChangedChunksWhenChunkCacheIsEnabled(@TempDir Path cacheDir) {
+        // Given
+        when(mockConfig.isCacheEnabled()).thenReturn(true);
+        when(mockConfig.getCacheDirectory()).thenReturn(cacheDir.toString());
+        when(mockConfig.getCacheMaxSizeMb()).thenReturn(10);
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Chunk summary");
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+
+        String originalText = generateLongText(40000);
+        String editedText = originalText.substring(0, 35000) + "An edited closing paragraph. ";
+        summarizer.summarize(originalText);
+        verify(mockModel, atLeast(5)).chat(contains("Text to summarize"));
+        clearInvocations(mockModel);
+
+        // When
+        String result = summarizer.summarize(editedText);
+
+        // Then
+        verify(mockModel, times(1)).chat(contains("Text to summarize"));
+        verify(mockModel, times(1)).chat(contains("Summaries to combine"));
+        assertThat(result, is("Final summary"));
+    }
+
+    @Test
+    void shouldKeepChunkSummariesWhenOnlyTheReduceModelChanges(@TempDir Path cacheDir) {
+        // Given
+        when(mockConfig.isCacheEnabled()).thenReturn(true);
+        when(mockConfig.getCacheDirectory()).thenReturn(cacheDir.toString());
+        when(mockConfig.getCacheMaxSizeMb()).thenReturn(10);
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Chunk summary");
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        String text = generateLongText(20000);
+        new OpenAiSummarizer(mockModel, mockConfig).summarize(text);
+        clearInvocations(mockModel);
+        ChatLanguageModel reduceModel = mockPromptModel();
+        when(reduceModel.chat(anyString())).thenReturn("Stronger final summary");
+        when(mockConfig.getOpenAiModelName(ModelTier.REDUCE)).thenReturn(Optional.of("gpt-4o"));
+
+        // When
+        String result = new OpenAiSummarizer(mockModel, reduceModel, null, mockConfig).summarize(text);
+
+        // Then
+        verify(mockModel, never()).chat(anyString());
+        verify(reduceModel, times(1)).chat(contains("Summaries to combine"));
+        assertThat(result, is("Stronger final summary"));
+    }
+
+    @Test
+    void shouldRemoveChunkSummariesWhenTheCacheIsCleared(@TempDir Path cacheDir) throws IOException {
+        // Given
+        when(mockConfig.isCacheEnabled()).thenReturn(true);
+        when(mockConfig.getCacheDirectory()).thenReturn(cacheDir.toString());
+        when(mockConfig.getCacheMaxSizeMb()).thenReturn(10);
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Chunk summary");
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+        String text = generateLongText(20000);
+        summarizer.summarize(text);
+        clearInvocations(mockModel);
+
+        // When
+        summarizer.clearCache();
+
+        // Then
+        try (Stream<Path> entries = Files.list(cacheDir.resolve("chunks"))) {
+            assertThat(entries.toList(), is(empty()));
+        }
+        summarizer.summarize(text);
+        verify(mockModel, atLeast(2)).chat(contains("Text to summarize"));
+    }
+
+    @Test
+    void shouldSummarizePageRangesIncrementally() {
+        // Given
+        when(mockModel.chat(contains("Text to summarize"))).thenReturn("Chunk summary");
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        Stream<String> pages = Stream.of(generateLongText(3000), "   ", generateLongText(3000), generateLongText(3000));
+
+        // When
+        String result = summarizer.summarizePages(pages);
+
+        // Then
+        verify(mockModel, times(3)).chat(contains("Text to summarize"));
+        verify(mockModel, times(1)).chat(contains("Summaries to combine"));
+        assertThat(result, is("Final summary"));
+    }
+
+    @Test
+    void shouldReturnNoContentMessageForBlankPages() {
+        String summary = summarizer.summarizePages(Stream.of("", "  \n "));
+
+        assertThat(summary, is("No content to summarize."));
+        verifyNoInteractions(mockModel);
+    }
+
+    @Test
+    void shouldRetryOnlyTheFailedChunkRequest() {
+        // Given
+        when(mockConfig.getOpenAiRetryMaxAttempts()).thenReturn(3);
+        when(mockConfig.getOpenAiRetryInitialDelayMs()).thenReturn(1L);
+        when(mockConfig.getOpenAiRetryMaxDelayMs()).thenReturn(5L);
+        AtomicInteger chunkCalls = new AtomicInteger();
+        when(mockModel.chat(contains("Text to summarize"))).thenAnswer(invocation -> {
+            if (chunkCalls.incrementAndGet() == 1) {
+                throw new HttpException(503, "Service unavailable");
+            }
+            return "Chunk summary";
+        });
+        when(mockModel.chat(contains("Summaries to combine"))).thenReturn("Final summary");
+        summarizer = new OpenAiSummarizer(mockModel, mockConfig);
+
+        // When
+        String result = summarizer.summarize(generateLongText(20000));
+
+        // Then
+        verify(mockModel, atLeast(2)).chat(promptCaptor.capture());
+        String finalPrompt = promptCaptor.getAllValues().getLast();
+        int chunkCount = finalPrompt.split("Chunk summary", -1).length - 1;
+        assertThat(chunkCount, is(greaterThan(1)));
+        assertThat(chunkCalls.get(), is(chunkCount + 1));
+        assertThat(result, is("Final summary"));
+    }
+
     private String generateLongText(int approxLength) {
         StringBuilder text = new StringBuilder(approxLength);
         String sentence = "This is a sample sentence for testing purposes. ";
@@ -0,0 +1,77 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PdfDirectoryWatcherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReportNewPdfOnceItHasSettled() throws Exception {
+        // Given
+        BlockingQueue<File> readyFiles = new LinkedBlockingQueue<>();
+        try (PdfDirectoryWatcher watcher = new PdfDirectoryWatcher(directory, Duration.ofMillis(300), readyFiles::add)) {
+            Thread thread = Thread.ofVirtual().start(watcher::run);
+
+            // When
+            Files.writeString(directory.resolve("notes.txt"), "not a pdf");
+            Path pdf = directory.resolve("report.pdf");
+            Files.write(pdf, new byte[1024]);
+            writeMore(pdf);
+
+            // Then
+            File ready = readyFiles.poll(10, TimeUnit.SECONDS);
+            assertThat(ready, is(pdf.toFile()));
+            assertThat(ready.length(), is(2048L));
+            assertThat(readyFiles.poll(1, TimeUnit.SECONDS), is(nullValue()));
+
+            thread.interrupt();
+            thread.join(5_000);
+        }
+    }
+
+    @Test
+    void shouldReportPdfsInNewSubdirectoriesThatMatchTheGlobs() throws Exception {
+        // Given
+        BlockingQueue<File> readyFiles = new LinkedBlockingQueue<>();
+        PdfFileFinder finder = new PdfFileFinder(directory, 0, null, "archive/**");
+        try (PdfDirectoryWatcher watcher = new PdfDirectoryWatcher(directory, Duration.ofMillis(300),
+                finder::isSelected, readyFiles::add)) {
+            Thread thread = Thread.ofVirtual().start(watcher::run);
+
+            // When
+            Files.createDirectories(directory.resolve("archive"));
+            Files.write(directory.resolve("archive").resolve("old.pdf"), new byte[1024]);
+            Path reports = Files.createDirectories(directory.resolve("reports"));
+            Thread.sleep(500);
+            Path pdf = reports.resolve("q3.pdf");
+            Files.write(pdf, new byte[1024]);
+
+            // Then
+            assertThat(readyFiles.poll(10, TimeUnit.SECONDS), is(pdf.toFile()));
+            assertThat(readyFiles.poll(1, TimeUnit.SECONDS), is(nullValue()));
+
+            thread.interrupt();
+            thread.join(5_000);
+        }
+    }
+
+    private static void writeMore(Path pdf) throws IOException, InterruptedException {
+        Thread.sleep(100);
+        Files.write(pdf, new byte[2048]);
+    }
+}
@@ -0,0 +1,162 @@
+package com.aimitjava;
+
+import dev.langchain4j.data.document.parser.apache.pdfbox.ApachePdfBoxDocumentParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PdfDocumentHandlerTest {
+
+    private PdfDocumentHandler handler;
+    private File pdf;
+
+    @BeforeEach
+    void setUp(@TempDir Path tempDir) throws IOException {
+        handler = new PdfDocumentHandler();
+        pdf = createPdf(tempDir.resolve("pages.pdf").toFile(), 5);
+    }
+
+    @Test
+    void shouldExtractTextOfAllPages() throws IOException {
+        String text = handler.extractText(pdf);
+
+        assertThat(text, stringContainsInOrder("Page 1", "Page 2", "Page 3", "Page 4", "Page 5"));
+    }
+
+    @Test
+    void shouldExtractSameTextAsLangChainParser() throws IOException {
+        String expected;
+        try (InputStream input = Files.newInputStream(pdf.toPath())) {
+            expected = new ApachePdfBoxDocumentParser().parse(input).text();
+        }
+
+        assertThat(handler.extractText(pdf), is(expected));
+    }
+
+    @Test
+    void shouldProvideTextPagesAndMetadataFromSingleExtraction() throws IOException {
+        try (PdfExtraction extraction = handler.extract(pdf)) {
+            // Then
+            assertThat(extraction.getPageCount(), is(5));
+            assertThat(extraction.getPages(), hasSize(5));
+            assertThat(extraction.getPages().get(2), containsString("Page 3"));
+            assertThat(extraction.getPageOffsets(), hasSize(5));
+
+            int thirdPageOffset = extraction.getPageOffsets().get(2);
+            assertThat(extraction.getText().substring(thirdPageOffset), startsWith(extraction.getPages().get(2)));
+            assertThat(extraction.getMetadata().getString("Title"), is("Test Document"));
+        }
+    }
+
+    @Test
+    void shouldStreamTextInPageRanges() throws IOException {
+        // When
+        List<String> batches;
+        try (Stream<String> pages = handler.streamText(pdf, 2)) {
+            batches = pages.toList();
+        }
+
+        // Then
+        assertThat(batches, hasSize(3));
+        assertThat(batches.get(0), stringContainsInOrder("Page 1", "Page 2"));
+        assertThat(batches.get(1), stringContainsInOrder("Page 3", "Page 4"));
+        assertThat(batches.get(2), containsString("Page 5"));
+        assertThat(batches.get(2), not(containsString("Page 4")));
+    }
+
+    @Test
+    void shouldStripRunningHeadersAndFootersWhenCleaning(@TempDir Path tempDir) throws IOException {
+        // Given
+        File report = tempDir.resolve("report.pdf").toFile();
+        try (PDDocument document = new PDDocument()) {
+            for (int pageNumber = 1; pageNumber <= 4; pageNumber++) {
+                String topic = List.of("Revenue", "Costs", "Staff", "Outlook").get(pageNumber - 1);
+                PDPage page = new PDPage();
+                document.addPage(page);
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                    contentStream.beginText();
+                    contentStream.setFont(PDType1Font.HELVETICA, 12);
+                    contentStream.newLineAtOffset(100, 750);
+                    contentStream.showText("Quarterly Report");
+                    contentStream.newLineAtOffset(0, -50);
+                    contentStream.showText(topic + " findings are summari-");
+                    contentStream.newLineAtOffset(0, -15);
+                    contentStream.showText("zed by the " + topic.toLowerCase() + " team.");
+                    for (String region : List.of("north", "south", "east", "west", "central")) {
+                        contentStream.newLineAtOffset(0, -15);
+                        contentStream.showText(topic + " of the " + region + " region were discussed.");
+                    }
+                    contentStream.newLineAtOffset(0, -525);
+                    contentStream.showText("Page " + pageNumber + " of 4");
+                    contentStream.endText();
+                }
+            }
+            document.save(report);
+        }
+
+        // When
+        String text = new PdfDocumentHandler(new PdfTextCleaner()).extractText(report);
+
+        // Then
+        assertThat(text, not(containsString("Quarterly Report")));
+        assertThat(text, not(containsString("of 4")));
+        assertThat(text, stringContainsInOrder("Revenue findings are summarized by the revenue team.",
+                "Revenue of the central region were discussed.", "Outlook findings are summarized by the outlook team."));
+    }
+
+    @Test
+    void shouldExtractSameTextWhenBuffersSpillIntoScratchFile(@TempDir Path scratchDirectory) throws IOException {
+        // Given
+        PdfDocumentHandler scratchHandler = new PdfDocumentHandler(null,
+                PdfDocumentHandler.memoryUsage(1, scratchDirectory.toFile()));
+
+        // When
+        String text = scratchHandler.extractText(pdf);
+        List<String> parts;
+        try (Stream<String> stream = scratchHandler.streamText(pdf, 2)) {
+            parts = stream.toList();
+        }
+
+        // Then
+        assertThat(text, is(handler.extractText(pdf)));
+        assertThat(String.join("", parts), is(text));
+        try (Stream<Path> files = Files.list(scratchDirectory)) {
+            assertThat(files.toList(), is(empty()));
+        }
+    }
+
+    static File createPdf(File file, int pageCount) throws IOException {
+        try (PDDocument document = new PDDocument()) {
+            for (int pageNumber = 1; pageNumber <= pageCount; pageNumber++) {
+                PDPage page = new PDPage();
+                document.addPage(page);
+
+                try (PDPageContentStream contentStream = new PDPageContentStream(document, page)) {
+                    contentStream.beginText();
+                    contentStream.setFont(PDType1Font.HELVETICA, 12);
+                    contentStream.newLineAtOffset(100, 700);
+                    contentStream.showText("Page " + pageNumber + " of the test document.");
+                    contentStream.endText();
+                }
+            }
+            document.getDocumentInformation().setTitle("Test Document");
+            document.save(file);
+        }
+        return file;
+    }
+}
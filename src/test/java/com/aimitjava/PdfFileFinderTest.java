@@ -3,11 +3,14 @@ package com.aimitjava;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -102,4 +105,77 @@ class PdfFileFinderTest {
             assertThat(e.getMessage(), containsString("large.pdf"));
         }
     }
+
+    @Test
+    void shouldUseConfiguredMaximumSize() throws IOException {
+        File pdf = new File(pdfDirectory, "medium.pdf");
+        Files.write(pdf.toPath(), new byte[3 * 1024 * 1024]); // 3 MB
+
+        try {
+            new PdfFileFinder(2).validateFileSize(pdf);
+            org.junit.jupiter.api.Assertions.fail("Expected PdfTooLargeException to be thrown");
+        } catch (PdfTooLargeException e) {
+            assertThat(e.getMessage(), containsString("exceeds maximum size of 2 MB"));
+        }
+    }
+
+    @Test
+    void shouldAcceptAnySizeWhenLimitIsDisabled() throws IOException {
+        File largePdf = new File(pdfDirectory, "large.pdf");
+        Files.write(largePdf.toPath(), new byte[6 * 1024 * 1024]); // 6 MB
+
+        new PdfFileFinder(0).validateFileSize(largePdf);
+    }
+
+    @Test
+    void shouldFindPdfsInNestedDirectories(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("a/b"));
+        Files.createFile(root.resolve("top.pdf"));
+        Files.createFile(root.resolve("a/UPPER.PDF"));
+        Files.createFile(root.resolve("a/b/deep.pdf"));
+        Files.createFile(root.resolve("a/b/notes.txt"));
+
+        List<File> pdfFiles = new PdfFileFinder(root, 5, null, null).getPdfFiles();
+
+        assertThat(
+                pdfFiles.stream().map(File::getName).toList(),
+                containsInAnyOrder("top.pdf", "UPPER.PDF", "deep.pdf")
+        );
+    }
+
+    @Test
+    void shouldApplyIncludeAndExcludeGlobs(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("reports/archive"));
+        Files.createDirectories(root.resolve("drafts"));
+        Files.createFile(root.resolve("reports/q1.pdf"));
+        Files.createFile(root.resolve("reports/archive/q0.pdf"));
+        Files.createFile(root.resolve("drafts/q2.pdf"));
+
+        List<File> pdfFiles = new PdfFileFinder(root, 5, "reports/**.pdf", "reports/archive/**").getPdfFiles();
+
+        assertThat(pdfFiles.stream().map(File::getName).toList(), contains("q1.pdf"));
+    }
+
+    @Test
+    void shouldSelectOnlyPdfsInIncludedDirectories(@TempDir Path root) throws IOException {
+        Files.createDirectories(root.resolve("reports"));
+        Files.createFile(root.resolve("reports/q1.pdf"));
+        Files.createFile(root.resolve("reports/q1.pdf.md"));
+        Files.createFile(root.resolve("reports/q1.docx"));
+
+        List<File> pdfFiles = new PdfFileFinder(root, 5, "reports/**", null).getPdfFiles();
+
+        assertThat(pdfFiles.stream().map(File::getName).toList(), contains("q1.pdf"));
+    }
+
+    @Test
+    void shouldStreamPdfsLazily(@TempDir Path root) throws IOException {
+        for (int i = 0; i < 20; i++) {
+            Files.createFile(root.resolve("file" + i + ".pdf"));
+        }
+
+        try (Stream<File> pdfFiles = new PdfFileFinder(root, 5, null, null).streamPdfFiles()) {
+            assertThat(pdfFiles.limit(3).count(), is(3L));
+        }
+    }
 }
@@ -11,11 +11,13 @@ import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 
 class PdfSummarizationAppIntegrationTest {
@@ -134,6 +136,343 @@ class PdfSummarizationAppIntegrationTest {
         verifyNoInteractions(documentHandler, summarizer, writer);
     }
 
+    @Test
+    void shouldProcessPdfsThroughPipelineWhenEnabled() throws IOException {
+        // Given
+        assumeSetup();
+        File secondPdf = Files.createFile(tempDir.resolve("second.pdf")).toFile();
+        when(fileFinder.streamPdfFiles()).thenReturn(Stream.of(testPdf, secondPdf));
+        Configuration config = mock(Configuration.class);
+        when(config.isPipelineEnabled()).thenReturn(true);
+        when(config.getPipelineQueueCapacity()).thenReturn(1);
+        when(config.getExtractionParallelism()).thenReturn(1);
+        when(config.getSummarizationParallelism()).thenReturn(2);
+        when(config.getWriterParallelism()).thenReturn(1);
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        verify(documentHandler).extractText(testPdf);
+        verify(documentHandler).extractText(secondPdf);
+        verify(summarizer, times(2)).summarize("Extracted text");
+        verify(writer).writeSummary("Mocked summary", testPdf);
+        verify(writer).writeSummary("Mocked summary", secondPdf);
+    }
+
+    @Test
+    void shouldWriteCachedSummaryWithoutParsingOnSecondRun() throws IOException {
+        // Given
+        assumeSetup();
+        Configuration config = mock(Configuration.class);
+        when(config.isCacheEnabled()).thenReturn(true);
+        when(config.getCacheDirectory()).thenReturn(tempDir.resolve("cache").toString());
+        when(config.getCacheMaxSizeMb()).thenReturn(1);
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+        app.run();
+        clearInvocations(documentHandler, summarizer, writer);
+
+        // When
+        app.run();
+
+        // Then
+        verifyNoInteractions(documentHandler);
+        verify(summarizer, never()).summarize(any());
+        verify(writer).writeSummary("Mocked summary", testPdf);
+    }
+
+    @Test
+    void shouldSummarizeAgainWhenTextCleaningIsSwitchedOn() throws IOException {
+        // Given
+        assumeSetup();
+        Configuration config = mock(Configuration.class);
+        when(config.isCacheEnabled()).thenReturn(true);
+        when(config.getCacheDirectory()).thenReturn(tempDir.resolve("cache").toString());
+        when(config.getCacheMaxSizeMb()).thenReturn(1);
+        new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config).run();
+        clearInvocations(documentHandler, summarizer, writer);
+        when(config.isPdfCleaningEnabled()).thenReturn(true);
+
+        // When
+        new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config).run();
+
+        // Then
+        verify(documentHandler).extractText(testPdf);
+        verify(summarizer).summarize("Extracted text");
+    }
+
+    @Test
+    void shouldSkipPdfsWrittenBeforeAnInterruptedRun() throws IOException {
+        // Given
+        assumeSetup();
+        Files.writeString(testPdf.toPath(), "first");
+        File secondPdf = Files.writeString(tempDir.resolve("second.pdf"), "second").toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, secondPdf));
+        when(summarizer.summarize(any(), any(SummaryProgress.class))).thenReturn("Mocked summary");
+        Path journalFile = tempDir.resolve("checkpoint.jsonl");
+        Configuration config = mock(Configuration.class);
+        when(config.isCheckpointEnabled()).thenReturn(true);
+        when(config.getCheckpointFile()).thenReturn(journalFile.toString());
+        doThrow(new IOException("Disk full")).when(writer).writeSummary(any(), eq(secondPdf));
+
+        org.junit.jupiter.api.Assertions.assertThrows(ApplicationTerminationException.class,
+                () -> new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config).run());
+        assertThat(Files.exists(journalFile), is(true));
+        clearInvocations(documentHandler, summarizer, writer);
+        doNothing().when(writer).writeSummary(any(), any());
+
+        // When
+        new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config).run();
+
+        // Then
+        verify(documentHandler, never()).extractText(testPdf);
+        verify(writer, never()).writeSummary(any(), eq(testPdf));
+        verify(writer).writeSummary("Mocked summary", secondPdf);
+        assertThat(Files.exists(journalFile), is(false));
+    }
+
+    @Test
+    void shouldWriteEveryCopyOfAnIdenticalPdfWhenCheckpointing() throws IOException {
+        // Given
+        assumeSetup();
+        File copy = Files.createFile(tempDir.resolve("copy.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, copy));
+        when(summarizer.summarize(any(), any(SummaryProgress.class))).thenReturn("Mocked summary");
+        Configuration config = mock(Configuration.class);
+        when(config.isCheckpointEnabled()).thenReturn(true);
+        when(config.getCheckpointFile()).thenReturn(tempDir.resolve("checkpoint.jsonl").toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        verify(writer).writeSummary("Mocked summary", testPdf);
+        verify(writer).writeSummary("Mocked summary", copy);
+    }
+
+    @Test
+    void shouldWriteSummariesThroughTheAsyncWriterBeforeTheRunCompletes() throws IOException {
+        // Given
+        assumeSetup();
+        File secondPdf = Files.createFile(tempDir.resolve("second.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, secondPdf));
+        Configuration config = mock(Configuration.class);
+        when(config.isOutputAsyncEnabled()).thenReturn(true);
+        when(config.getOutputAsyncQueueCapacity()).thenReturn(1);
+        when(config.getOutputAsyncGroupSize()).thenReturn(2);
+        when(config.getOutputAsyncGroupDelayMs()).thenReturn(5L);
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, new MarkdownWriter(), config);
+        long writerThreads = countWriterThreads();
+
+        // When
+        app.run();
+
+        // Then
+        assertThat(Files.readString(tempDir.resolve("test.pdf.md")), containsString("Mocked summary"));
+        assertThat(Files.readString(tempDir.resolve("second.pdf.md")), containsString("Mocked summary"));
+        assertThat(countWriterThreads(), is(writerThreads));
+    }
+
+    @Test
+    void shouldStartAFreshAsyncWriterForEveryRun() throws IOException {
+        // Given
+        assumeSetup();
+        Configuration config = mock(Configuration.class);
+        when(config.isOutputAsyncEnabled()).thenReturn(true);
+        when(config.getOutputAsyncQueueCapacity()).thenReturn(1);
+        when(config.getOutputAsyncGroupSize()).thenReturn(1);
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, new MarkdownWriter(), config);
+        app.run();
+        when(summarizer.summarize(any())).thenReturn("Updated summary");
+
+        // When
+        app.run();
+
+        // Then
+        assertThat(Files.readString(tempDir.resolve("test.pdf.md")), containsString("Updated summary"));
+    }
+
+    @Test
+    void shouldReportOnlyTheFailedAsyncWriteWhenContinuingOnError() throws IOException {
+        // Given
+        assumeSetup();
+        File secondPdf = Files.createFile(tempDir.resolve("second.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, secondPdf));
+        // A non-empty directory in place of the summary cannot be replaced
+        Files.createFile(Files.createDirectory(tempDir.resolve("second.pdf.md")).resolve("blocker"));
+        Path report = tempDir.resolve("report.json");
+        Configuration config = mock(Configuration.class);
+        when(config.getPdfDirectory()).thenReturn(tempDir.toString());
+        when(config.isOutputAsyncEnabled()).thenReturn(true);
+        when(config.getOutputAsyncQueueCapacity()).thenReturn(1);
+        when(config.getOutputAsyncGroupSize()).thenReturn(1);
+        when(config.isContinueOnErrorEnabled()).thenReturn(true);
+        when(config.getMaxFailures()).thenReturn(1);
+        when(config.getFailureReportFile()).thenReturn(report.toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, new MarkdownWriter(), config);
+
+        // When
+        app.run();
+
+        // Then
+        assertThat(Files.readString(tempDir.resolve("test.pdf.md")), containsString("Mocked summary"));
+        String json = Files.readString(report);
+        assertThat(json, containsString("\"failed\" : 1"));
+        assertThat(json, containsString("\"stage\" : \"write\""));
+        assertThat(json, containsString("second.pdf"));
+        assertThat(json, not(containsString("test.pdf")));
+    }
+
+    private static long countWriterThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("group-commit-writer"))
+                .count();
+    }
+
+    @Test
+    void shouldReuseSummaryOfNearDuplicatePdf() throws IOException {
+        // Given
+        assumeSetup();
+        File reExport = Files.createFile(tempDir.resolve("re-export.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, reExport));
+        String body = " The quarterly results show growth in every region.".repeat(40);
+        when(documentHandler.extractText(testPdf)).thenReturn("Report draft" + body);
+        when(documentHandler.extractText(reExport)).thenReturn("Report final" + body);
+        Configuration config = mock(Configuration.class);
+        when(config.isDeduplicationEnabled()).thenReturn(true);
+        when(config.getDeduplicationSimilarity()).thenReturn(0.9);
+        when(config.getDeduplicationIndexFile()).thenReturn(tempDir.resolve("index.jsonl").toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        verify(summarizer, times(1)).summarize(any());
+        verify(writer).writeSummary("Mocked summary", testPdf);
+        verify(writer).writeSummary("Mocked summary", reExport);
+    }
+
+    @Test
+    void shouldQuarantineFailingPdfAndProcessTheRestWhenContinuingOnError() throws IOException {
+        // Given
+        assumeSetup();
+        File corruptPdf = Files.createFile(tempDir.resolve("corrupt.pdf")).toFile();
+        File thirdPdf = Files.createFile(tempDir.resolve("third.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(testPdf, corruptPdf, thirdPdf));
+        when(documentHandler.extractText(corruptPdf)).thenThrow(new IOException("Broken xref table"));
+        Path quarantine = tempDir.resolve("quarantine");
+        Path report = tempDir.resolve("report.json");
+        Configuration config = mock(Configuration.class);
+        when(config.getPdfDirectory()).thenReturn(tempDir.toString());
+        when(config.isContinueOnErrorEnabled()).thenReturn(true);
+        when(config.getMaxFailures()).thenReturn(1);
+        when(config.getQuarantineDirectory()).thenReturn(quarantine.toString());
+        when(config.getFailureReportFile()).thenReturn(report.toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        verify(writer).writeSummary("Mocked summary", testPdf);
+        verify(writer).writeSummary("Mocked summary", thirdPdf);
+        verify(writer, never()).writeSummary(any(), eq(corruptPdf));
+        assertThat(corruptPdf.exists(), is(false));
+        assertThat(Files.exists(quarantine.resolve("corrupt.pdf")), is(true));
+        String json = Files.readString(report);
+        assertThat(json, containsString("\"failed\" : 1"));
+        assertThat(json, containsString("\"stage\" : \"extract\""));
+        assertThat(json, containsString("\"error\" : \"IOException\""));
+        assertThat(json, containsString("Broken xref table"));
+    }
+
+    @Test
+    void shouldQuarantinePdfThatFailsWhileItsPagesAreStreamed() throws IOException {
+        // Given
+        assumeSetup();
+        File corruptPdf = Files.createFile(tempDir.resolve("corrupt.pdf")).toFile();
+        when(fileFinder.getPdfFiles()).thenReturn(List.of(corruptPdf));
+        when(documentHandler.streamText(eq(corruptPdf), anyInt())).thenReturn(Stream.generate(() -> {
+            throw new PdfExtractionException("Failed to extract pages 1-10", new IOException("Broken content stream"));
+        }));
+        when(summarizer.summarizePages(any())).thenAnswer(invocation ->
+                invocation.<Stream<String>>getArgument(0).collect(Collectors.joining()));
+        Path quarantine = tempDir.resolve("quarantine");
+        Path report = tempDir.resolve("report.json");
+        Configuration config = mock(Configuration.class);
+        when(config.isPdfStreamingEnabled()).thenReturn(true);
+        when(config.getPdfDirectory()).thenReturn(tempDir.toString());
+        when(config.isContinueOnErrorEnabled()).thenReturn(true);
+        when(config.getMaxFailures()).thenReturn(1);
+        when(config.getQuarantineDirectory()).thenReturn(quarantine.toString());
+        when(config.getFailureReportFile()).thenReturn(report.toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        assertThat(corruptPdf.exists(), is(false));
+        assertThat(Files.exists(quarantine.resolve("corrupt.pdf")), is(true));
+        String json = Files.readString(report);
+        assertThat(json, containsString("\"stage\" : \"summarize\""));
+        assertThat(json, containsString("\"error\" : \"IOException\""));
+        assertThat(json, containsString("Broken content stream"));
+    }
+
+    @Test
+    void shouldReportButNotQuarantinePdfWhenTheCircuitIsOpen() throws IOException {
+        // Given
+        assumeSetup();
+        when(summarizer.summarize(any())).thenThrow(new CircuitOpenException("Circuit open, retry in 30s"));
+        Path quarantine = tempDir.resolve("quarantine");
+        Path report = tempDir.resolve("report.json");
+        Configuration config = mock(Configuration.class);
+        when(config.getPdfDirectory()).thenReturn(tempDir.toString());
+        when(config.isContinueOnErrorEnabled()).thenReturn(true);
+        when(config.getMaxFailures()).thenReturn(1);
+        when(config.getQuarantineDirectory()).thenReturn(quarantine.toString());
+        when(config.getFailureReportFile()).thenReturn(report.toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        app.run();
+
+        // Then
+        assertThat(testPdf.exists(), is(true));
+        assertThat(Files.exists(quarantine.resolve("test.pdf")), is(false));
+        String json = Files.readString(report);
+        assertThat(json, containsString("\"stage\" : \"summarize\""));
+        assertThat(json, containsString("\"error\" : \"CircuitOpenException\""));
+        assertThat(json, containsString("\"quarantinedTo\" : null"));
+    }
+
+    @Test
+    void shouldExitWithFailureCodeWhenFailuresExceedThreshold() throws IOException {
+        // Given
+        assumeSetup();
+        doThrow(new PdfTooLargeException("File too large")).when(fileFinder).validateFileSize(any());
+        Configuration config = mock(Configuration.class);
+        when(config.getPdfDirectory()).thenReturn(tempDir.toString());
+        when(config.isContinueOnErrorEnabled()).thenReturn(true);
+        when(config.getFailureReportFile()).thenReturn(tempDir.resolve("report.json").toString());
+        app = new PdfSummarizationApp(fileFinder, documentHandler, summarizer, writer, config);
+
+        // When
+        ApplicationTerminationException exception = org.junit.jupiter.api.Assertions.assertThrows(
+                ApplicationTerminationException.class,
+                () -> app.run()
+        );
+
+        // Then
+        assertThat(exception.getExitCode(), is(2));
+        assertThat(testPdf.exists(), is(true));
+        assertThat(Files.readString(tempDir.resolve("report.json")), containsString("PdfTooLargeException"));
+    }
+
     private void assumeSetup() {
         org.junit.jupiter.api.Assumptions.assumeTrue(isSetup,
                 "Test skipped - no API key available");
@@ -0,0 +1,97 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class PdfTextCleanerTest {
+
+    private final PdfTextCleaner cleaner = new PdfTextCleaner();
+
+    @Test
+    void shouldRemoveRunningHeadersFootersAndPageNumbers() {
+        // Given
+        List<String> pages = new ArrayList<>();
+        for (int page = 1; page <= 6; page++) {
+            pages.add("ACME Corp. Annual Report 2023 – Chapter " + page + "\n"
+                    + body(page)
+                    + "\n"
+                    + "Confidential – printed 12.03.2024\n"
+                    + page + "\n");
+        }
+
+        // When
+        String text = cleaner.clean(pages);
+
+        // Then
+        assertThat(text, not(containsString("Annual Report")));
+        assertThat(text, not(containsString("Confidential")));
+        assertThat(text, not(containsString("\n3\n")));
+        assertThat(text, stringContainsInOrder(body(1).strip(), body(6).strip()));
+    }
+
+    @Test
+    void shouldKeepLinesThatOnlyRepeatOnFewPages() {
+        // Given
+        List<String> pages = new ArrayList<>();
+        for (int page = 1; page <= 10; page++) {
+            String heading = page <= 2 ? "Introduction" : "Results for region " + (char) ('A' + page);
+            pages.add(heading + "\n" + body(page));
+        }
+
+        // When
+        String text = cleaner.clean(pages);
+
+        // Then
+        assertThat(text.split("Introduction", -1).length - 1, is(2));
+        assertThat(text, containsString("Results for region D"));
+    }
+
+    @Test
+    void shouldKeepShortPagesWhoseLinesAllSitAtTheEdges() {
+        // Given
+        List<String> pages = new ArrayList<>();
+        for (int page = 1; page <= 5; page++) {
+            pages.add("Slide " + page + " of the test deck.\n");
+        }
+
+        // When
+        String text = cleaner.clean(pages);
+
+        // Then
+        assertThat(text, stringContainsInOrder("Slide 1 of the test deck.", "Slide 5 of the test deck."));
+    }
+
+    @Test
+    void shouldJoinHyphenatedWordsAndNormalizeWhitespace() {
+        // Given
+        List<String> pages = List.of("The summari-\nzation   of long   docu-  \n  ments\r\n\n\n\n\tneeds care.\n");
+
+        // When
+        String text = cleaner.clean(pages);
+
+        // Then
+        assertThat(text, is("The summarization of long documents\n\nneeds care."));
+    }
+
+    @Test
+    void shouldKeepHyphenBeforeCapitalizedWords() {
+        assertThat(cleaner.clean(List.of("Made in North-\nAmerica\n")), is("Made in North-\nAmerica"));
+    }
+
+    private static String body(int page) {
+        StringBuilder body = new StringBuilder();
+        for (int line = 0; line < 8; line++) {
+            body.append("The ").append(WORDS[(page + line) % WORDS.length]).append(" team reviewed the ")
+                    .append(WORDS[(page * 3 + line) % WORDS.length]).append(" figures.\n");
+        }
+        return body.toString();
+    }
+
+    private static final String[] WORDS = {"sales", "marketing", "research", "finance", "support",
+            "legal", "design", "operations", "logistics", "quality", "security"};
+}
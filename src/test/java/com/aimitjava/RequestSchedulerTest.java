@@ -0,0 +1,153 @@
+package com.aimitjava;
+
+import dev.langchain4j.exception.HttpException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RequestSchedulerTest {
+
+    @Test
+    void shouldNeverExceedConcurrencyLimit() throws Exception {
+        // Given
+        RequestScheduler scheduler = new RequestScheduler(0, 0, 3, Duration.ZERO);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                futures.add(executor.submit(() -> scheduler.execute(10, () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    sleep(5);
+                    active.decrementAndGet();
+                    return "ok";
+                })));
+            }
+            for (Future<String> future : futures) {
+                future.get();
+            }
+        }
+
+        // Then
+        assertThat(maxActive.get(), is(lessThanOrEqualTo(3)));
+    }
+
+    @Test
+    void shouldThrottleRequestsAboveRequestBudget() {
+        // Given: 600 RPM allows a burst of 100 requests, then 10 per second
+        RequestScheduler scheduler = new RequestScheduler(600, 0, 4, Duration.ZERO);
+        long start = System.nanoTime();
+
+        // When
+        for (int i = 0; i < 105; i++) {
+            scheduler.execute(1, () -> "ok");
+        }
+
+        // Then
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertThat(elapsedMs, is(greaterThanOrEqualTo(400L)));
+    }
+
+    @Test
+    void shouldThrottleSchedulersSharingABudgetTogether() {
+        // Given: 600 RPM allows a burst of 100 requests, then 10 per second, across both schedulers
+        RequestScheduler map = new RequestScheduler(600, 0, 4, Duration.ZERO);
+        RequestScheduler reduce = new RequestScheduler(map, 2, Duration.ZERO);
+        long start = System.nanoTime();
+
+        // When
+        for (int i = 0; i < 100; i++) {
+            map.execute(1, () -> "ok");
+        }
+        for (int i = 0; i < 5; i++) {
+            reduce.execute(1, () -> "ok");
+        }
+
+        // Then
+        long elapsedMs = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertThat(elapsedMs, is(greaterThanOrEqualTo(400L)));
+    }
+
+    @Test
+    void shouldHalveConcurrencyOnRateLimitResponse() {
+        // Given
+        RequestScheduler scheduler = new RequestScheduler(0, 0, 8, Duration.ZERO);
+
+        // When
+        Assertions.assertThrows(HttpException.class, () -> scheduler.execute(1, () -> {
+            throw new HttpException(429, "Rate limit reached. Please try again in 20ms.");
+        }));
+
+        // Then
+        assertThat(scheduler.currentConcurrencyLimit(), is(4));
+    }
+
+    @Test
+    void shouldReadRetryAfterFromErrorMessage() {
+        HttpException error = new HttpException(429, "Rate limit reached. Please try again in 1.5s.");
+
+        assertThat(OpenAiErrors.isRateLimited(error), is(true));
+        assertThat(OpenAiErrors.retryAfter(new RuntimeException(error)).orElseThrow(), is(Duration.ofMillis(1500)));
+    }
+
+    @Test
+    @Timeout(30)
+    void shouldNotPinCarrierThreadsWhileManyVirtualThreadsWaitForSlots() throws Exception {
+        // Given: far more waiting virtual threads than there are carrier threads
+        RequestScheduler scheduler = new RequestScheduler(0, 0, 4, Duration.ZERO);
+        AtomicInteger completed = new AtomicInteger();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 1000; i++) {
+                executor.submit(() -> scheduler.execute(1, () -> {
+                    sleep(1);
+                    return completed.incrementAndGet();
+                }));
+            }
+        }
+
+        // Then
+        assertThat(completed.get(), is(1000));
+    }
+
+    @Test
+    void shouldBackOffOnlyOncePerLatencyWindow() throws Exception {
+        // Given
+        RequestScheduler scheduler = new RequestScheduler(0, 0, 8, Duration.ofMillis(1));
+
+        // When: eight slow requests in flight at the same time
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                executor.submit(() -> scheduler.execute(1, () -> {
+                    sleep(20);
+                    return "ok";
+                }));
+            }
+        }
+
+        // Then
+        assertThat(scheduler.currentConcurrencyLimit(), is(7));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.aimitjava;
+
+import dev.langchain4j.exception.HttpException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(10));
+
+    @Test
+    void shouldRetryTransientFailuresUntilSuccess() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = policy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new RuntimeException(new IOException("Connection reset"));
+            }
+            return "ok";
+        });
+
+        // Then
+        assertThat(result, is("ok"));
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void shouldNotRetryClientErrors() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When/Then
+        Assertions.assertThrows(HttpException.class, () -> policy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new HttpException(401, "Invalid API key");
+        }));
+        assertThat(attempts.get(), is(1));
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        // Given
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When/Then
+        Assertions.assertThrows(HttpException.class, () -> policy.execute(() -> {
+            attempts.incrementAndGet();
+            throw new HttpException(503, "Service unavailable");
+        }));
+        assertThat(attempts.get(), is(3));
+    }
+
+    @Test
+    void shouldWaitAtLeastRetryAfterInterval() {
+        HttpException rateLimited = new HttpException(429, "Rate limit reached. Please try again in 250ms.");
+
+        assertThat(policy.delayBefore(1, rateLimited), is(greaterThanOrEqualTo(250L)));
+        assertThat(policy.delayBefore(5, new HttpException(500, "Server error")), is(lessThanOrEqualTo(10L)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class StagedPipelineTest {
+
+    @Test
+    void shouldPassEveryItemThroughAllStages() {
+        // Given
+        List<Integer> items = IntStream.range(0, 100).boxed().toList();
+        Queue<Integer> firstStage = new ConcurrentLinkedQueue<>();
+        Queue<Integer> lastStage = new ConcurrentLinkedQueue<>();
+
+        // When
+        new StagedPipeline<Integer>(4)
+                .stage("first", 3, false, firstStage::add)
+                .stage("last", 5, true, lastStage::add)
+                .run(items.iterator());
+
+        // Then
+        assertThat(firstStage, containsInAnyOrder(items.toArray()));
+        assertThat(lastStage, containsInAnyOrder(items.toArray()));
+    }
+
+    @Test
+    void shouldLimitConcurrentWorkersPerStage() {
+        // Given
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        // When
+        new StagedPipeline<Integer>(2)
+                .stage("limited", 3, true, item -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    sleep(5);
+                    active.decrementAndGet();
+                })
+                .run(IntStream.range(0, 30).boxed().iterator());
+
+        // Then
+        assertThat(maxActive.get(), is(lessThanOrEqualTo(3)));
+    }
+
+    @Test
+    void shouldHandOverFailedItemsAndKeepProcessingWhenContinuingOnError() {
+        // Given
+        List<Integer> items = IntStream.range(0, 50).boxed().toList();
+        Queue<Integer> written = new ConcurrentLinkedQueue<>();
+        Queue<String> failures = new ConcurrentLinkedQueue<>();
+
+        // When
+        new StagedPipeline<Integer>(2)
+                .stage("check", 2, false, item -> {
+                    if (item % 10 == 0) {
+                        throw new IllegalStateException("Corrupt item " + item);
+                    }
+                })
+                .stage("write", 2, true, written::add)
+                .continueOnError((item, stage, error) -> failures.add(item + "@" + stage + ": " + error.getMessage()))
+                .run(items.iterator());
+
+        // Then
+        assertThat(failures, containsInAnyOrder("0@check: Corrupt item 0", "10@check: Corrupt item 10",
+                "20@check: Corrupt item 20", "30@check: Corrupt item 30", "40@check: Corrupt item 40"));
+        assertThat(written, hasSize(45));
+        assertThat(written, not(hasItem(20)));
+    }
+
+    @Test
+    void shouldPropagateFirstFailureAndStopProcessing() {
+        // Given
+        AtomicInteger written = new AtomicInteger();
+        StagedPipeline<Integer> pipeline = new StagedPipeline<Integer>(1)
+                .stage("fail", 1, false, item -> {
+                    if (item == 3) {
+                        throw new IllegalStateException("Broken item " + item);
+                    }
+                })
+                .stage("write", 1, true, item -> written.incrementAndGet());
+
+        // When/Then
+        IllegalStateException exception = Assertions.assertThrows(
+                IllegalStateException.class,
+                () -> pipeline.run(IntStream.range(0, 10_000).boxed().iterator())
+        );
+        assertThat(exception.getMessage(), is("Broken item 3"));
+        assertThat(written.get(), is(lessThan(10_000)));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.aimitjava;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class SummaryCacheTest {
+
+    @TempDir
+    Path cacheDir;
+
+    @Test
+    void shouldReturnStoredSummary() {
+        // Given
+        SummaryCache cache = new SummaryCache(cacheDir, 1024 * 1024);
+
+        // When
+        cache.put("abc", "Cached summary");
+
+        // Then
+        assertThat(cache.get("abc"), is(Optional.of("Cached summary")));
+        assertThat(cache.get("unknown"), is(Optional.empty()));
+    }
+
+    @Test
+    void shouldPersistEntriesAcrossInstances() {
+        // Given
+        new SummaryCache(cacheDir, 1024 * 1024).put("abc", "Cached summary");
+
+        // When
+        Optional<String> summary = new SummaryCache(cacheDir, 1024 * 1024).get("abc");
+
+        // Then
+        assertThat(summary, is(Optional.of("Cached summary")));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntriesWhenFull() throws IOException {
+        // Given
+        SummaryCache cache = new SummaryCache(cacheDir, 25);
+        cache.put("first", "0123456789");
+        cache.put("second", "0123456789");
+        Files.setLastModifiedTime(cacheDir.resolve("first.txt"), FileTime.fromMillis(1_000));
+        Files.setLastModifiedTime(cacheDir.resolve("second.txt"), FileTime.fromMillis(2_000));
+        cache.get("first");
+
+        // When
+        cache.put("third", "0123456789");
+
+        // Then
+        assertThat(cache.get("first").isPresent(), is(true));
+        assertThat(cache.get("second").isPresent(), is(false));
+        assertThat(cache.get("third").isPresent(), is(true));
+    }
+
+    @Test
+    void shouldRemoveEntriesOnInvalidateAndClear() {
+        // Given
+        SummaryCache cache = new SummaryCache(cacheDir, 1024 * 1024);
+        cache.put("first", "One");
+        cache.put("second", "Two");
+
+        // When
+        cache.invalidate("first");
+
+        // Then
+        assertThat(cache.get("first").isPresent(), is(false));
+        assertThat(cache.get("second").isPresent(), is(true));
+
+        // When
+        cache.clear();
+
+        // Then
+        assertThat(cache.get("second").isPresent(), is(false));
+    }
+}